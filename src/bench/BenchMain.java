@@ -0,0 +1,55 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the trees, with the GC profiler attached so that
+ * allocation rates (gc.alloc.rate.norm, in bytes per operation) are reported
+ * next to throughput and average time.
+ *
+ * The benchmarks live under src/bench, apart from the rest of the sources,
+ * since they need JMH (jmh-core, with its jopt-simple and commons-math3
+ * dependencies) on the class path and jmh-generator-annprocess as an
+ * annotation processor. Compile them together with src/console and src/tango,
+ * then run for example
+ *
+ * java -cp <classes>:<jmh jars>:src/lib/log4j-1.2.17.jar bench.BenchMain
+ *
+ * Any JMH command line options may be given, such as a benchmark regex,
+ * "-p treeType=rbTango,Splay" to narrow the parameters, or "-rf csv" to keep
+ * the results.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class BenchMain {
+
+	public static void main(String[] args) throws RunnerException {
+		CommandLineOptions cmd;
+
+		try {
+			cmd = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmd);
+		builder.addProfiler(GCProfiler.class);
+
+		if (cmd.getIncludes().isEmpty())
+			builder.include("bench\\..*Benchmark");
+
+		Options opt = builder.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,126 @@
+package bench;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+
+import console.SequenceGenerator;
+import console.SequenceParameters;
+import console.SequenceType;
+
+/**
+ * Builds the key sequences the benchmarks replay, from the same generators
+ * that StatRunner uses, with the default SequenceParameters. The keys are
+ * drawn up front so that generating them is never part of a measurement.
+ *
+ * @author Gregory Bint
+ *
+ */
+final class BenchSequences {
+
+	private BenchSequences() {
+	}
+
+	/**
+	 * @param type
+	 *            any generated sequence type
+	 * @param levels
+	 *            the number of levels of the tree, which holds keys 1 ..
+	 *            2^levels - 1
+	 * @param count
+	 *            the number of keys wanted; the sequence is regenerated with
+	 *            new seeds as often as needed
+	 * @param seed
+	 *            the seed of the random sequence types
+	 */
+	static int[] keys(SequenceType type, int levels, int count, long seed) {
+		int[] keys = new int[count];
+		int i = 0;
+
+		for (int rep = 0; i < count; ++rep) {
+			PrimitiveIterator.OfInt seq = open(type, levels,
+					SequenceGenerator.deriveSeed(seed, rep));
+
+			while (i < count && seq.hasNext())
+				keys[i++] = seq.nextInt();
+		}
+
+		return keys;
+	}
+
+	/**
+	 * As keys, but with no key repeated, as updates need. Sequences that
+	 * revisit a few keys may not hold count different ones soon enough; the
+	 * rest are then made up of the smallest keys not yet taken.
+	 */
+	static int[] distinctKeys(SequenceType type, int levels, int count,
+			long seed) {
+		int n = (1 << levels) - 1;
+
+		if (count > n)
+			throw new IllegalArgumentException("The tree holds only " + n
+					+ " keys");
+
+		int[] drawn = keys(type, levels, 64 * count, seed);
+		int[] keys = new int[count];
+		BitSet taken = new BitSet(n + 1);
+		int i = 0;
+
+		for (int j = 0; i < count && j < drawn.length; ++j) {
+			if (!taken.get(drawn[j])) {
+				taken.set(drawn[j]);
+				keys[i++] = drawn[j];
+			}
+		}
+
+		for (int key = 1; i < count; ++key) {
+			if (!taken.get(key))
+				keys[i++] = key;
+		}
+
+		return keys;
+	}
+
+	private static PrimitiveIterator.OfInt open(SequenceType type,
+			int levels, long seed) {
+		SequenceParameters p = new SequenceParameters();
+		int n = (1 << levels) - 1;
+
+		switch (type) {
+		case INCREASING:
+			return SequenceGenerator.increasing(n);
+		case DECREASING:
+			return SequenceGenerator.decreasing(n);
+		case PERMUTATION:
+			return SequenceGenerator.of(SequenceGenerator.permutation(n, seed));
+		case RANDOM:
+			return SequenceGenerator.randomStream(n, seed);
+		case SQUAREROOT:
+			return SequenceGenerator.squareRoot(n);
+		case RANDOMWALK:
+			return SequenceGenerator.randomWalk(n, p.walkDistribution,
+					p.walkStep, seed);
+		case SEQUENTIALJITTER:
+			return SequenceGenerator.sequentialJitter(n, p.jitter, seed);
+		case BITREVERSAL:
+			return SequenceGenerator.bitReversal(levels);
+		case INTERLEAVE:
+			return SequenceGenerator.interleave(levels, n);
+		case ZIPF:
+			return SequenceGenerator.zipf(n, p.zipfExponent, seed);
+		case HOTSPOT:
+			return SequenceGenerator.hotspot(n, p.hotspotAccesses,
+					p.hotspotKeys, seed);
+		case WORKINGSET:
+			return SequenceGenerator.workingSet(n,
+					(int) Math.max(1, Math.round(p.workingSetKeys * n)),
+					p.workingSetDrift, seed);
+		case PHASE:
+			return SequenceGenerator.phases(n,
+					(int) Math.max(1, Math.round(p.phaseKeys * n)),
+					p.phaseLength, p.phaseRegions, seed);
+		default:
+			throw new IllegalArgumentException(type
+					+ " sequences cannot be benchmarked");
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tango.BSTNode;
+import tango.BinarySearchTree;
+import tango.OperationNotPermitted;
+import console.SequenceType;
+import console.TreeType;
+
+/**
+ * Inserts BATCH different keys, in sequence order, into a perfect tree they
+ * have been removed from beforehand, outside the measurement. As with
+ * RemoveBenchmark, each iteration is one batch on a new tree, and Tango trees
+ * are left out.
+ *
+ * @author Gregory Bint
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = InsertBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = InsertBenchmark.BATCH)
+@Fork(1)
+public class InsertBenchmark {
+
+	static final int BATCH = 1 << 12;
+
+	private static final Object VALUE = new Object();
+
+	@Param({ "Basic", "RedBlack", "Splay" })
+	public String treeType;
+
+	@Param({ "16", "20" })
+	public int levels;
+
+	@Param({ "Permutation", "Random", "Zipf", "WorkingSet", "BitReversal" })
+	public String sequenceType;
+
+	private BinarySearchTree _tree;
+	private int[] _keys;
+	private int _next;
+
+	@Setup(Level.Trial)
+	public void setupKeys() {
+		_keys = BenchSequences.distinctKeys(
+				SequenceType.fromString(sequenceType), levels, BATCH, 45);
+	}
+
+	@Setup(Level.Iteration)
+	public void setupTree() throws OperationNotPermitted {
+		_tree = TreeType.fromString(treeType).newTree();
+		_tree.initializePerfectTree(levels);
+
+		for (int key : _keys)
+			_tree.remove(key);
+
+		_next = 0;
+	}
+
+	@Benchmark
+	public BSTNode insert() throws OperationNotPermitted {
+		return _tree.insert(_keys[_next++], VALUE);
+	}
+}
@@ -0,0 +1,72 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tango.BinarySearchTree;
+import tango.OperationNotPermitted;
+import console.SequenceType;
+import console.TreeType;
+
+/**
+ * Removes BATCH different keys, in sequence order, from a freshly built
+ * perfect tree. Each iteration is one batch on a new tree, so that every
+ * removal finds its key; the time per removal is the batch time over BATCH.
+ * Tango trees do not support removal, and are left out.
+ *
+ * @author Gregory Bint
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = RemoveBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = RemoveBenchmark.BATCH)
+@Fork(1)
+public class RemoveBenchmark {
+
+	static final int BATCH = 1 << 12;
+
+	@Param({ "Basic", "RedBlack", "Splay" })
+	public String treeType;
+
+	@Param({ "16", "20" })
+	public int levels;
+
+	@Param({ "Permutation", "Random", "Zipf", "WorkingSet", "BitReversal" })
+	public String sequenceType;
+
+	private BinarySearchTree _tree;
+	private int[] _keys;
+	private int _next;
+
+	@Setup(Level.Trial)
+	public void setupKeys() {
+		_keys = BenchSequences.distinctKeys(
+				SequenceType.fromString(sequenceType), levels, BATCH, 45);
+	}
+
+	@Setup(Level.Iteration)
+	public void setupTree() {
+		_tree = TreeType.fromString(treeType).newTree();
+		_tree.initializePerfectTree(levels);
+		_next = 0;
+	}
+
+	@Benchmark
+	public Object remove() throws OperationNotPermitted {
+		return _tree.remove(_keys[_next++]);
+	}
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tango.BinarySearchTree;
+import console.SequenceType;
+import console.TreeType;
+
+/**
+ * Searches every kind of tree for the keys of a sequence, over and over. The
+ * tree is built once per trial, so self-adjusting trees are measured in the
+ * state the sequence keeps them in rather than from the perfect tree.
+ *
+ * @author Gregory Bint
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+	/**
+	 * The number of keys replayed, a power of two
+	 */
+	private static final int KEYS = 1 << 16;
+
+	@Param({ "Basic", "RedBlack", "Splay", "rbTango", "uTango", "PersistentRB" })
+	public String treeType;
+
+	@Param({ "12", "16", "20" })
+	public int levels;
+
+	@Param({ "Permutation", "Random", "Zipf", "WorkingSet", "BitReversal" })
+	public String sequenceType;
+
+	private BinarySearchTree _tree;
+	private int[] _keys;
+	private int _next;
+
+	@Setup
+	public void setup() {
+		_tree = TreeType.fromString(treeType).newTree();
+
+		if (_tree == null)
+			throw new IllegalArgumentException("Unknown tree type " + treeType);
+
+		_tree.initializePerfectTree(levels);
+
+		_keys = BenchSequences.keys(SequenceType.fromString(sequenceType),
+				levels, KEYS, 45);
+		_next = 0;
+	}
+
+	@Benchmark
+	public Object search() {
+		int key = _keys[_next];
+		_next = (_next + 1) & (KEYS - 1);
+
+		return _tree.search(key);
+	}
+}
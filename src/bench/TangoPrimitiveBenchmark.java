@@ -0,0 +1,249 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tango.TangoNode;
+import tango.TangoPrimitives;
+import tango.TangoTree;
+import console.TreeType;
+
+/**
+ * Times the Tango primitives one at a time, on both kinds of aux tree. A
+ * search to a node at depth pathLength - 1 makes the path down to it the aux
+ * tree at the root, holding pathLength nodes with depths 0 .. pathLength - 1.
+ * Each benchmark then applies one primitive to that aux tree:
+ * 
+ * cut splits the path below depth cutDepth into an aux tree of its own, and
+ * join joins it back on. cutFraction sets how far down the path the cut falls:
+ * cutDepth is cutFraction * (pathLength - 1), rounded down, and at most
+ * pathLength - 2 so that the cut leaves at least one node below it.
+ * 
+ * split brings a node of the path up to the aux root, and merge puts the aux
+ * tree back together around it. The node is taken from each depth of the
+ * path in turn.
+ * 
+ * Before every invocation, and outside the measurement, a helper state puts
+ * the aux tree in the shape the primitive needs by applying the opposite
+ * one. The primitives are reached through TangoPrimitives. Timing single invocations costs some tens of nanoseconds of timer
+ * overhead, so the numbers are best compared between trees and between
+ * versions rather than read as absolute.
+ * 
+ * @author Gregory Bint
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TangoPrimitiveBenchmark {
+
+	private static final int WHOLE = 0;
+	private static final int CUT = 1;
+	private static final int SPLIT = 2;
+
+	@Param({ "uTango", "rbTango" })
+	public String treeType;
+
+	@Param({ "20" })
+	public int levels;
+
+	@Param({ "4", "10", "20" })
+	public int pathLength;
+
+	@Param({ "0.25", "0.5", "0.75" })
+	public double cutFraction;
+
+	private TangoTree _tree;
+	private int _cutDepth;
+	private int[] _pathKeys;
+	private int _leaf;
+
+	private int _state;
+	private TangoNode _bottom;
+	private TangoNode _splitNode;
+	private int _nextSplit;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		if (pathLength < 2 || pathLength > levels)
+			throw new IllegalArgumentException(
+					"pathLength must be within [2, levels]");
+
+		if (!(cutFraction >= 0 && cutFraction <= 1))
+			throw new IllegalArgumentException(
+					"cutFraction must be within [0, 1]");
+
+		_tree = (TangoTree) TreeType.fromString(treeType).newTree();
+		_tree.initializePerfectTree(levels);
+
+		/*
+		 * The path turns left and right in turn, down to depth pathLength - 1,
+		 * so that it crosses the key space rather than running along an edge
+		 */
+		_pathKeys = new int[pathLength];
+
+		_pathKeys[0] = 1 << (levels - 1);
+
+		for (int depth = 1; depth < pathLength; ++depth) {
+			int step = 1 << (levels - 1 - depth);
+
+			_pathKeys[depth] = ((depth & 1) == 1 ? _pathKeys[depth - 1] - step
+					: _pathKeys[depth - 1] + step);
+		}
+
+		_leaf = _pathKeys[pathLength - 1];
+		_cutDepth = Math.min(pathLength - 2,
+				(int) (cutFraction * (pathLength - 1)));
+
+		_tree.search(_leaf);
+
+		_state = WHOLE;
+		_nextSplit = 0;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Preparation
+	 */
+
+	/**
+	 * Puts the path back into one aux tree, whichever primitive ran last
+	 */
+	private void toWhole() {
+		if (_state == CUT) {
+			findBottom();
+			join();
+		} else if (_state == SPLIT) {
+			merge();
+		}
+	}
+
+	/**
+	 * Finds the root of the aux tree that cut split off
+	 */
+	private void findBottom() {
+		_bottom = TangoPrimitives.findAuxRoot(_tree,
+				TangoPrimitives.findNode(_tree, _leaf));
+	}
+
+	/**
+	 * Readies the next node of the path for splitting
+	 */
+	private void pickSplitNode() {
+		_splitNode = TangoPrimitives.findNode(_tree, _pathKeys[_nextSplit]);
+		_nextSplit = (_nextSplit + 1) % pathLength;
+	}
+
+	@State(Scope.Thread)
+	public static class ReadyToCut {
+		@Setup(Level.Invocation)
+		public void prepare(TangoPrimitiveBenchmark b) {
+			b.toWhole();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ReadyToJoin {
+		@Setup(Level.Invocation)
+		public void prepare(TangoPrimitiveBenchmark b) {
+			b.toWhole();
+			b.cut();
+			b.findBottom();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ReadyToSplit {
+		@Setup(Level.Invocation)
+		public void prepare(TangoPrimitiveBenchmark b) {
+			b.toWhole();
+			b.pickSplitNode();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ReadyToMerge {
+		@Setup(Level.Invocation)
+		public void prepare(TangoPrimitiveBenchmark b) {
+			b.toWhole();
+			b.pickSplitNode();
+			b.split();
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Primitives
+	 */
+
+	private TangoNode cut() {
+		TangoNode r = TangoPrimitives.cut(_tree, (TangoNode) _tree.getRoot(),
+				_cutDepth);
+		_state = CUT;
+
+		return r;
+	}
+
+	private TangoNode join() {
+		TangoNode r = TangoPrimitives.join(_tree, (TangoNode) _tree.getRoot(),
+				_bottom, _cutDepth);
+		_state = WHOLE;
+
+		return r;
+	}
+
+	private TangoNode split() {
+		TangoNode r = TangoPrimitives.split(_tree, _splitNode,
+				(TangoNode) _tree.getRoot());
+		_state = SPLIT;
+
+		return r;
+	}
+
+	private TangoNode merge() {
+		TangoNode r = TangoPrimitives.merge(_tree, _splitNode);
+		_state = WHOLE;
+
+		return r;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Benchmarks
+	 */
+
+	@Benchmark
+	public TangoNode tangoCut(ReadyToCut ready) {
+		return cut();
+	}
+
+	@Benchmark
+	public TangoNode tangoJoin(ReadyToJoin ready) {
+		return join();
+	}
+
+	@Benchmark
+	public TangoNode tangoSplit(ReadyToSplit ready) {
+		return split();
+	}
+
+	@Benchmark
+	public TangoNode tangoMerge(ReadyToMerge ready) {
+		return merge();
+	}
+}
@@ -0,0 +1,146 @@
+package console;
+
+import tango.BSTNode;
+import tango.BinarySearchTree;
+import tango.FlatCombiningTree;
+import tango.OperationNotPermitted;
+import tango.TreeStats;
+
+/**
+ * Compares the search throughput of a FlatCombiningTree against the same tree
+ * behind a plain lock, for 1 .. maxthreads threads searching uniformly random
+ * keys. Searches in self-adjusting trees change the tree, so both fronts
+ * serialize the searches themselves; the difference is what the threads spend
+ * on getting to the tree.
+ *
+ * Usage: java console.CombiningMain [treetype] [levels] [maxthreads] [millis]
+ *
+ * @author Gregory Bint
+ *
+ */
+public class CombiningMain {
+
+	private static TreeType _treeType = TreeType.SPLAY;
+	private static int _levels = 16;
+	private static int _maxThreads = Math.max(2, Runtime.getRuntime()
+			.availableProcessors());
+	private static long _millis = 2000;
+
+	public static void main(String[] args) throws InterruptedException {
+		parseCommandLine(args);
+
+		int keys = (int) ((1L << _levels) - 1);
+
+		System.out.println(String.format(
+				"treetype:%s;levels:%d;cores:%d;millis:%d", _treeType,
+				_levels, Runtime.getRuntime().availableProcessors(), _millis));
+
+		// one untimed round of each, so that the timed ones run compiled code
+		Throughput.measureSearches(createFront(false), keys, _maxThreads,
+				_millis);
+		Throughput.measureSearches(createFront(true), keys, _maxThreads,
+				_millis);
+
+		for (int threads = 1; threads <= _maxThreads; ++threads) {
+			double locked = Throughput.measureSearches(createFront(false),
+					keys, threads, _millis);
+			double combined = Throughput.measureSearches(createFront(true),
+					keys, threads, _millis);
+
+			System.out.println(String.format(
+					"threads:%d;synchronized/s:%.0f;combining/s:%.0f;ratio:%.2f",
+					threads, locked, combined, combined / locked));
+		}
+	}
+
+	/**
+	 * @return a fresh perfect tree behind either front
+	 */
+	private static BinarySearchTree createFront(boolean combining) {
+		BinarySearchTree t;
+
+		if (combining) {
+			t = new FlatCombiningTree(createTree());
+		} else {
+			t = new SynchronizedTree(createTree());
+		}
+
+		t.initializePerfectTree(_levels);
+
+		return t;
+	}
+
+	private static BinarySearchTree createTree() {
+		BinarySearchTree t = _treeType.newTree();
+
+		if (t == null) {
+			printUsage();
+			System.exit(2);
+		}
+
+		return t;
+	}
+
+	private static void parseCommandLine(String[] args) {
+		try {
+			if (args.length > 0)
+				_treeType = TreeType.fromString(args[0]);
+			if (args.length > 1)
+				_levels = Integer.parseInt(args[1]);
+			if (args.length > 2)
+				_maxThreads = Integer.parseInt(args[2]);
+			if (args.length > 3)
+				_millis = Long.parseLong(args[3]);
+		} catch (NumberFormatException e) {
+			printUsage();
+			System.exit(1);
+		}
+	}
+
+	private static void printUsage() {
+		System.out
+				.println("Usage: java console.CombiningMain [Basic|RedBlack|Splay|rbTango|uTango|PersistentRB] [levels] [maxthreads] [millis]");
+	}
+
+	/**
+	 * The baseline: every operation takes the tree's monitor
+	 */
+	private static class SynchronizedTree implements BinarySearchTree {
+		private final BinarySearchTree _tree;
+
+		private SynchronizedTree(BinarySearchTree tree) {
+			_tree = tree;
+		}
+
+		@Override
+		public synchronized BSTNode insert(int key, Object value)
+				throws OperationNotPermitted {
+			return _tree.insert(key, value);
+		}
+
+		@Override
+		public synchronized Object remove(int key) throws OperationNotPermitted {
+			return _tree.remove(key);
+		}
+
+		@Override
+		public synchronized Object search(int key) {
+			return _tree.search(key);
+		}
+
+		@Override
+		public synchronized BSTNode getRoot() {
+			return _tree.getRoot();
+		}
+
+		@Override
+		public synchronized TreeStats getStats() {
+			return _tree.getStats();
+		}
+
+		@Override
+		public synchronized void initializePerfectTree(int levels) {
+			_tree.initializePerfectTree(levels);
+		}
+	}
+}
@@ -0,0 +1,761 @@
+package console;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+import org.apache.log4j.Logger;
+
+import tango.BinarySearchTree;
+import tango.OperationNotPermitted;
+import tango.ResettableTree;
+import tango.ShardedTree;
+import tango.SplittableTree;
+import tango.TreeStats;
+
+/**
+ * A single cell of the experiment matrix: one set at one number of levels, run
+ * on every tree type. Each Experiment owns its trees, its sequence and its
+ * random numbers, so any number of them can run at once. The sequence is
+ * generated a chunk at a time, and each chunk is run through every tree before
+ * the next is drawn, so the keys are generated once however many trees there
+ * are, and memory is mostly taken by the trees. Only the searches are timed,
+ * each tree's apart from the others'; drawing each chunk and running it
+ * through the bounds happens outside the timed region.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class Experiment implements Callable<ExperimentResult[]> {
+	private static final Logger log = Logger.getLogger(Experiment.class);
+
+	/**
+	 * The number of distinct keys of the sequence replayed to measure the
+	 * allocations of each operation
+	 */
+	private static final int MEMORY_OPS = 1 << 16;
+
+	private static final Object MEMORY_VALUE = new Object();
+
+	/**
+	 * The number of keys drawn from the sequence ahead of each timed batch of
+	 * searches
+	 */
+	private static final int CHUNK = 1 << 14;
+
+	/**
+	 * The last tree of each type released on each thread, which the next
+	 * experiment on the same size of tree resets rather than building a new
+	 * one
+	 */
+	private static final ThreadLocal<EnumMap<TreeType, SpareTree>> _spares = new ThreadLocal<EnumMap<TreeType, SpareTree>>() {
+		@Override
+		protected EnumMap<TreeType, SpareTree> initialValue() {
+			return new EnumMap<TreeType, SpareTree>(TreeType.class);
+		}
+	};
+
+	/**
+	 * The last interleave bound used on each thread, which the next experiment
+	 * of the same size resets rather than allocating its bit sets again
+	 */
+	private static final ThreadLocal<InterleaveBound> _spareBound = new ThreadLocal<InterleaveBound>();
+
+	private final SequenceType _seqType;
+	private final int _levels;
+	private final int _set;
+	private final int _reps;
+	private final String _seqFile;
+	private final int _shards;
+	private final long _seed;
+	private final SequenceParameters _params;
+	private final int _sampling;
+	private final WarmupPolicy _warmup;
+	private final boolean _memoryReport;
+
+	private final int _n;
+	private final TreeRun[] _runs;
+	private boolean _warmingUp;
+	private FingerBound _finger;
+	private InterleaveBound _interleave;
+	private int[] _memoryKeys;
+	private int _memoryCount;
+	private HashSet<Integer> _memoryTaken;
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+
+	/**
+	 * @param treeTypes
+	 *            the kinds of tree to run the sequence on, each once
+	 * @param seqType
+	 *            the kind of sequence to generate
+	 * @param levels
+	 *            the number of levels of the initial perfect trees
+	 * @param set
+	 *            which repetition of the experiment this is
+	 * @param reps
+	 *            how many times the sequence is repeated
+	 * @param seqFile
+	 *            the file to load the sequence from, for FILE and BINARYFILE
+	 *            sequences
+	 * @param shards
+	 *            the number of shards to split each tree into
+	 * @param seed
+	 *            the seed of this experiment's random sequences
+	 * @param params
+	 *            the shape of the skewed and drifting sequence types
+	 * @param sampling
+	 *            the mean number of searches between those whose latency is
+	 *            sampled, or 0 to sample none
+	 * @param warmup
+	 *            how many throwaway runs to make before the measured one
+	 * @param memoryReport
+	 *            whether to measure each tree's memory footprint and the bytes
+	 *            allocated by each operation
+	 */
+	public Experiment(TreeType[] treeTypes, SequenceType seqType, int levels,
+			int set, int reps, String seqFile, int shards, long seed,
+			SequenceParameters params, int sampling, WarmupPolicy warmup,
+			boolean memoryReport) {
+		_seqType = seqType;
+		_levels = levels;
+		_set = set;
+		_reps = reps;
+		_seqFile = seqFile;
+		_shards = shards;
+		_seed = seed;
+		_params = params;
+		_sampling = sampling;
+		_warmup = warmup;
+		_memoryReport = memoryReport;
+
+		_n = (int) ((1L << levels) - 1);
+
+		_runs = new TreeRun[treeTypes.length];
+
+		for (int i = 0; i < treeTypes.length; ++i) {
+			_runs[i] = new TreeRun(treeTypes[i]);
+		}
+	}
+
+	/**
+	 * Warms up, then generates the sequence, runs it on a fresh tree of each
+	 * type and releases them again
+	 *
+	 * @return the results of each tree type, in the order given
+	 */
+	@Override
+	public ExperimentResult[] call() {
+		dropSpares();
+
+		// the same sequence on throwaway trees, until each type's run times
+		// settle; the types that have settled sit out the later rounds
+		_warmingUp = true;
+
+		TreeRun[] warming;
+
+		while ((warming = needingWarmup()).length > 0) {
+			for (TreeRun r : warming) {
+				r.prepTree();
+			}
+
+			execSequence(new Repetitions(), warming);
+
+			for (TreeRun r : warming) {
+				r._times[r._warmups++] = r._searchNanos;
+				r.releaseTree();
+			}
+		}
+
+		_warmingUp = false;
+
+		for (TreeRun r : _runs) {
+			r.prepTree();
+		}
+
+		execSequence(new Repetitions(), _runs);
+
+		ExperimentResult[] results = new ExperimentResult[_runs.length];
+
+		for (int i = 0; i < _runs.length; ++i) {
+			TreeRun r = _runs[i];
+
+			double cv = WarmupPolicy.coefficientOfVariation(r._times,
+					Math.max(0, r._warmups - _warmup.steadyWindow), r._warmups);
+
+			if (r._warmups > 0 && r._warmups == _warmup.maxWarmupIterations
+					&& cv > _warmup.steadyCv) {
+				log.warn(String.format(
+						"%s levels %d set %d did not settle after %d warmups (cv %.3f)",
+						r._type, _levels, _set, r._warmups, cv));
+			}
+
+			// the memory measurements run more operations, which must not
+			// count
+			TreeStats stats = new TreeStats(r._tree.getStats());
+			MemoryFootprint memory = (_memoryReport ? measureMemory(r) : null);
+
+			results[i] = new ExperimentResult(r._type, _seqType, _levels, _set,
+					_reps, _shards, _seqFile, _seed, _params, r._seqSize, stats,
+					_finger.getBound(), _interleave.getBound(), r._buildNanos,
+					r._resetNanos, r._searchNanos, r._latency, r._warmups, cv,
+					memory);
+
+			r.releaseTree();
+		}
+
+		_memoryKeys = null;
+		_memoryTaken = null;
+
+		return results;
+	}
+
+	/**
+	 * Drops this thread's spare trees of another size, so that their memory
+	 * can go before any tree is built
+	 */
+	private void dropSpares() {
+		Iterator<SpareTree> it = _spares.get().values().iterator();
+
+		while (it.hasNext()) {
+			if (it.next()._levels != _levels)
+				it.remove();
+		}
+	}
+
+	/**
+	 * @return the runs whose types need another throwaway run
+	 */
+	private TreeRun[] needingWarmup() {
+		ArrayList<TreeRun> warming = new ArrayList<TreeRun>();
+
+		for (TreeRun r : _runs) {
+			if (_warmup.needsMore(r._times, r._warmups))
+				warming.add(r);
+		}
+
+		return warming.toArray(new TreeRun[warming.size()]);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Sequence Generation
+	 */
+
+	/**
+	 * Generates one repetition of the sequence
+	 *
+	 * @param rep
+	 *            which repetition; each gets different random numbers
+	 */
+	private PrimitiveIterator.OfInt generateSequence(int rep) {
+		long seed = SequenceGenerator.deriveSeed(_seed, rep);
+
+		switch (_seqType) {
+		case FILE:
+			return openSequenceFile();
+		case BINARYFILE:
+			return openBinarySequenceFile();
+		case INCREASING:
+			logInfo("Generating increasing sequence from 1 to " + _n);
+			return SequenceGenerator.increasing(_n);
+		case DECREASING:
+			logInfo("Generating decreasing sequence from " + _n + " to 1");
+			return SequenceGenerator.decreasing(_n);
+		case PERMUTATION:
+			logInfo("Generating a permutation of the values 1 to " + _n);
+			return SequenceGenerator.permutationStream(_n, seed);
+		case RANDOM:
+			logInfo("Generating a random sequence of value from [1," + _n
+					+ "]" + " of length " + _n);
+			return SequenceGenerator.randomStream(_n, seed);
+		case SQUAREROOT:
+			logInfo("Generating Sqrt sequence of the values 1 to " + _n);
+			return SequenceGenerator.squareRoot(_n);
+		case RANDOMWALK:
+			logInfo("Generating a random walk over the values 1 to " + _n
+					+ " with " + _params.walkDistribution + "("
+					+ _params.walkStep + ") steps");
+			return SequenceGenerator.randomWalk(_n, _params.walkDistribution,
+					_params.walkStep, seed);
+		case SEQUENTIALJITTER:
+			logInfo("Generating a sequential scan of the values 1 to " + _n
+					+ " with jitter " + _params.jitter);
+			return SequenceGenerator.sequentialJitter(_n, _params.jitter,
+					seed);
+		case BITREVERSAL:
+			logInfo("Generating the bit-reversal permutation of the values 1 to "
+					+ _n);
+			return SequenceGenerator.bitReversal(_levels);
+		case INTERLEAVE:
+			logInfo("Generating an interleaving sequence of length " + _n
+					+ " over the leaves");
+			return SequenceGenerator.interleave(_levels, _n);
+		case ZIPF:
+			logInfo("Generating a Zipf(" + _params.zipfExponent
+					+ ") sequence of the values 1 to " + _n);
+			return SequenceGenerator.zipf(_n, _params.zipfExponent, seed);
+		case HOTSPOT:
+			logInfo("Generating a hotspot sequence of the values 1 to " + _n
+					+ " with " + _params.hotspotAccesses + " of accesses on "
+					+ _params.hotspotKeys + " of keys");
+			return SequenceGenerator.hotspot(_n, _params.hotspotAccesses,
+					_params.hotspotKeys, seed);
+		case WORKINGSET:
+			logInfo("Generating a working set sequence of the values 1 to "
+					+ _n + " with " + _params.workingSetKeys
+					+ " of keys drifting " + _params.workingSetDrift
+					+ " per access");
+			return SequenceGenerator.workingSet(_n,
+					fractionOfKeys(_params.workingSetKeys),
+					_params.workingSetDrift, seed);
+		case PHASE:
+			logInfo("Generating a phase sequence of the values 1 to " + _n
+					+ " over " + _params.phaseRegions + " regions of "
+					+ _params.phaseKeys + " of keys, switching every "
+					+ _params.phaseLength + " accesses");
+			return SequenceGenerator.phases(_n,
+					fractionOfKeys(_params.phaseKeys), _params.phaseLength,
+					_params.phaseRegions, seed);
+		default:
+			log.fatal("Unhandled sequence type");
+			System.exit(-1);
+			return null;
+		}
+	}
+
+	/**
+	 * Logs progress, except during throwaway runs
+	 */
+	private void logInfo(String msg) {
+		if (!_warmingUp)
+			log.info(msg);
+	}
+
+	/**
+	 * @return the number of keys making up the given fraction of the tree
+	 */
+	private int fractionOfKeys(double fraction) {
+		return (int) Math.max(1, Math.round(fraction * _n));
+	}
+
+	private PrimitiveIterator.OfInt openSequenceFile() {
+		logInfo("Streaming " + _seqFile);
+
+		try {
+			return SequenceGenerator.fromTextFile(_seqFile);
+		} catch (FileNotFoundException e) {
+			log.fatal(_seqFile + " could not be found for opening");
+			System.exit(-1);
+			return null;
+		}
+	}
+
+	private PrimitiveIterator.OfInt openBinarySequenceFile() {
+		logInfo("Mapping " + _seqFile);
+
+		try {
+			return SequenceGenerator.fromBinaryFile(_seqFile);
+		} catch (IOException e) {
+			log.fatal(_seqFile + " could not be opened: " + e.getMessage());
+			System.exit(-1);
+			return null;
+		}
+	}
+
+	/**
+	 * The whole sequence: each repetition, opened only once the previous one
+	 * has run out
+	 */
+	private class Repetitions implements PrimitiveIterator.OfInt {
+		private int _rep = 0;
+		private PrimitiveIterator.OfInt _cur = null;
+
+		@Override
+		public boolean hasNext() {
+			while (_cur == null || !_cur.hasNext()) {
+				if (_rep == _reps)
+					return false;
+
+				_cur = generateSequence(_rep++);
+			}
+
+			return true;
+		}
+
+		@Override
+		public int nextInt() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			return _cur.nextInt();
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Execution
+	 */
+
+	/**
+	 * Sharded trees are split up, and the memory report needs to measure a
+	 * build, so neither reuses trees
+	 */
+	private boolean canReuseTree() {
+		return (_shards == 1 && !_memoryReport);
+	}
+
+	/**
+	 * Runs the sequence on the tree of each of runs, a chunk at a time, timing
+	 * only the searches into each run's _searchNanos
+	 */
+	private void execSequence(PrimitiveIterator.OfInt seq, TreeRun[] runs) {
+		logInfo("Executing search sequence...");
+
+		// the results of throwaway runs are discarded, so are their bounds
+		_finger = (_warmingUp ? null : new FingerBound(_n));
+		_interleave = (_warmingUp ? null : openInterleaveBound());
+		_memoryKeys = (_memoryReport && !_warmingUp ? new int[Math.min(
+				MEMORY_OPS, _n)] : null);
+		_memoryCount = 0;
+		_memoryTaken = (_memoryKeys != null ? new HashSet<Integer>() : null);
+
+		for (TreeRun r : runs) {
+			r.startSequence();
+		}
+
+		int[] chunk = new int[CHUNK];
+		int len;
+
+		while ((len = drawChunk(seq, chunk)) > 0) {
+			for (TreeRun r : runs) {
+				r.searchChunk(chunk, len);
+			}
+		}
+	}
+
+	/**
+	 * @return a cleared interleave bound for this size of tree, reusing this
+	 *         thread's last one if it fits
+	 */
+	private InterleaveBound openInterleaveBound() {
+		InterleaveBound b = _spareBound.get();
+
+		if (b != null && b.getLevels() == _levels) {
+			b.reset();
+			return b;
+		}
+
+		// drop the old bit sets before allocating the new ones
+		b = null;
+		_spareBound.remove();
+
+		b = new InterleaveBound(_levels);
+		_spareBound.set(b);
+
+		return b;
+	}
+
+	/**
+	 * Fills chunk with the next keys of the sequence, generating them as
+	 * needed, and runs each through the bounds unless warming up
+	 * 
+	 * @return the number of keys drawn, or 0 once the sequence is done
+	 */
+	private int drawChunk(PrimitiveIterator.OfInt seq, int[] chunk) {
+		int len = 0;
+
+		while (len < chunk.length && seq.hasNext()) {
+			int key = seq.nextInt();
+
+			if (_finger != null) {
+				_finger.access(key);
+				_interleave.access(key);
+			}
+
+			// removals need distinct keys, or the repeats would remove nothing
+			if (_memoryKeys != null && _memoryCount < _memoryKeys.length
+					&& _memoryTaken.add(key))
+				_memoryKeys[_memoryCount++] = key;
+
+			chunk[len++] = key;
+		}
+
+		return len;
+	}
+
+	/**
+	 * @return the number of searches up to the next sampled one, averaging
+	 *         _sampling
+	 */
+	private int nextSampleGap(SplittableRandom rnd) {
+		if (_sampling <= 0)
+			return 0;
+
+		return 1 + rnd.nextInt(2 * _sampling - 1);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Memory
+	 */
+
+	/**
+	 * Replays the first distinct keys of the sequence as searches on r's tree,
+	 * then as removals, then as insertions of the removed keys, counting the
+	 * bytes each allocates. Sequences that revisit a few keys may not hold
+	 * enough different ones; the rest are then made up of the smallest keys
+	 * not yet taken. This changes the tree, so it must come after everything
+	 * else.
+	 */
+	private MemoryFootprint measureMemory(TreeRun r) {
+		BinarySearchTree tree = r._tree;
+		double perKey = r._retainedBytes / (double) _n;
+
+		// the operations of sharded trees allocate on the shards' threads
+		if (tree instanceof ShardedTree)
+			return new MemoryFootprint(perKey, Double.NaN, Double.NaN,
+					Double.NaN);
+
+		int ops = (int) Math.min(r._seqSize, _memoryKeys.length);
+
+		// the keys made up for one tree are kept for the next
+		for (int key = 1; _memoryCount < ops; ++key) {
+			if (_memoryTaken.add(key))
+				_memoryKeys[_memoryCount++] = key;
+		}
+
+		if (ops == 0)
+			return new MemoryFootprint(perKey, Double.NaN, Double.NaN,
+					Double.NaN);
+
+		long before = MemoryMeter.allocatedBytes();
+
+		for (int i = 0; i < ops; ++i) {
+			tree.search(_memoryKeys[i]);
+		}
+
+		double perSearch = (MemoryMeter.allocatedBytes() - before)
+				/ (double) ops;
+
+		double perRemove = Double.NaN;
+		double perInsert = Double.NaN;
+
+		try {
+			before = MemoryMeter.allocatedBytes();
+
+			for (int i = 0; i < ops; ++i) {
+				tree.remove(_memoryKeys[i]);
+			}
+
+			perRemove = (MemoryMeter.allocatedBytes() - before) / (double) ops;
+			before = MemoryMeter.allocatedBytes();
+
+			for (int i = 0; i < ops; ++i) {
+				tree.insert(_memoryKeys[i], MEMORY_VALUE);
+			}
+
+			perInsert = (MemoryMeter.allocatedBytes() - before) / (double) ops;
+
+		} catch (OperationNotPermitted e) {
+			// Tango trees are search only
+		}
+
+		return new MemoryFootprint(perKey, perSearch, perInsert, perRemove);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Trees
+	 */
+
+	/**
+	 * One tree type's share of the experiment: its tree, and what has been
+	 * measured on it
+	 */
+	private class TreeRun {
+		private final TreeType _type;
+		private final long[] _times = new long[Math.max(
+				_warmup.maxWarmupIterations, 1)];
+		private int _warmups = 0;
+
+		private BinarySearchTree _tree;
+		private boolean _failed;
+		private long _seqSize;
+		private LatencyHistogram _latency;
+		private long _searchNanos;
+		private long _buildNanos;
+		private long _resetNanos;
+		private long _retainedBytes;
+		private SplittableRandom _sampleRnd;
+		private int _untilSample;
+
+		private TreeRun(TreeType type) {
+			_type = type;
+		}
+
+		/**
+		 * Makes the tree to run on, resetting this thread's spare tree of the
+		 * type if it fits and building a new one otherwise. The time taken
+		 * goes to _resetNanos or _buildNanos, with the other set to -1.
+		 */
+		private void prepTree() {
+			SpareTree spare = _spares.get().remove(_type);
+
+			_buildNanos = -1;
+			_resetNanos = -1;
+			_failed = false;
+
+			// the spare is dropped either way
+			if (spare != null && spare._levels == _levels && canReuseTree()) {
+				try {
+					long start = System.nanoTime();
+					spare._tree.reset();
+					_resetNanos = System.nanoTime() - start;
+
+					_tree = spare._tree;
+					return;
+				} catch (IllegalStateException e) {
+					log.warn("Could not reset the " + _type
+							+ " tree, building a new one: " + e.getMessage());
+				}
+			}
+
+			spare = null;
+
+			// the retained bytes are the growth of the collected heap over the
+			// build, with the new tree kept reachable from _tree
+			boolean measure = (_memoryReport && !_warmingUp);
+			long before = (measure ? MemoryMeter.retainedBytes() : 0);
+			long start = System.nanoTime();
+
+			_tree = _type.newTree();
+
+			if (_tree == null) {
+				log.fatal("Unhandled tree type");
+				System.exit(-1);
+			}
+
+			if (_shards > 1) {
+				if (!(_tree instanceof SplittableTree)) {
+					log.fatal(_type + " trees cannot be sharded");
+					System.exit(-1);
+				}
+
+				_tree = new ShardedTree((SplittableTree) _tree, _shards);
+			}
+
+			_tree.initializePerfectTree(_levels);
+
+			_buildNanos = System.nanoTime() - start;
+
+			if (measure)
+				_retainedBytes = MemoryMeter.retainedBytes() - before;
+		}
+
+		/**
+		 * Releases the tree's worker threads, and lets its memory go
+		 */
+		private void releaseTree() {
+			if (_tree instanceof ShardedTree) {
+				((ShardedTree) _tree).shutdown();
+			} else if (canReuseTree() && !_failed
+					&& _tree instanceof ResettableTree) {
+				_spares.get().put(_type,
+						new SpareTree(_levels, (ResettableTree) _tree));
+			}
+
+			_tree = null;
+		}
+
+		private void startSequence() {
+			_seqSize = 0;
+			_latency = new LatencyHistogram();
+			_searchNanos = 0;
+
+			// samples are spaced randomly, so that they do not fall into step
+			// with periodic sequences, but every type samples the same
+			// searches
+			_sampleRnd = new SplittableRandom(_seed);
+			_untilSample = nextSampleGap(_sampleRnd);
+		}
+
+		/**
+		 * Searches the tree for the first len keys of chunk, adding the time
+		 * taken to _searchNanos. Once the tree has failed it is left alone.
+		 */
+		private void searchChunk(int[] chunk, int len) {
+			if (_failed)
+				return;
+
+			_seqSize += len;
+
+			try {
+				long start = System.nanoTime();
+
+				if (_tree instanceof ShardedTree) {
+					ShardedTree st = (ShardedTree) _tree;
+
+					// let the shards work in parallel, and wait once per
+					// chunk; searches complete out of sight, so none are
+					// sampled
+					for (int i = 0; i < len; ++i) {
+						st.submitSearch(chunk[i]);
+					}
+
+					st.drain();
+				} else {
+					for (int i = 0; i < len; ++i) {
+						if (_sampling > 0 && --_untilSample == 0) {
+							long t = System.nanoTime();
+							_tree.search(chunk[i]);
+							_latency.record(System.nanoTime() - t);
+
+							_untilSample = nextSampleGap(_sampleRnd);
+						} else {
+							_tree.search(chunk[i]);
+						}
+					}
+				}
+
+				_searchNanos += System.nanoTime() - start;
+
+			} catch (AssertionError e) {
+				log.fatal(_type + " Assertion Failure: " + e.getMessage());
+
+				// the tree may have been left half way through an update
+				_failed = true;
+
+				// but, we move on without exiting
+
+			} catch (Exception e) {
+				log.fatal("Unexpected Error: " + e.getMessage());
+				e.printStackTrace();
+				System.exit(-1);
+			}
+		}
+	}
+
+	/**
+	 * A tree kept for reuse, with the levels it was built with
+	 */
+	private static class SpareTree {
+		private final int _levels;
+		private final ResettableTree _tree;
+
+		private SpareTree(int levels, ResettableTree tree) {
+			_levels = levels;
+			_tree = tree;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package console;
+
+import tango.TreeStats;
+
+/**
+ * Everything measured on one tree type by an Experiment, along with the
+ * configuration and seed that produced it. toString gives the Results line
+ * that is logged, and getColumns and getValues give the same numbers as a row
+ * for a ResultsSink.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ExperimentResult {
+
+	private static final String[] COLUMNS = { "treetype", "seqtype", "levels",
+			"set", "reps", "shards", "seqfile", "seed",
+			"zipfexponent", "hotspotaccesses", "hotspotkeys",
+			"workingsetkeys", "workingsetdrift", "phasekeys", "phaselength",
+			"phaseregions", "walkdistribution", "walkstep", "jitter",
+			"seqsize", "rotations", "traversals", "othertraversals", "finger",
+			"wilber", "buildnanos", "resetnanos", "runnanos", "latencysamples",
+			"latencyp50", "latencyp90", "latencyp99", "latencyp999",
+			"latencymax", "latencymean", "warmups", "warmupcv",
+			"bytesperkey", "bytespersearch", "bytesperinsert",
+			"bytesperremove" };
+
+	private final TreeType _treeType;
+	private final SequenceType _seqType;
+	private final int _levels;
+	private final int _set;
+	private final int _reps;
+	private final int _shards;
+	private final String _seqFile;
+	private final long _seed;
+	private final SequenceParameters _params;
+
+	private final long _seqSize;
+	private final TreeStats _stats;
+	private final long _finger;
+	private final long _wilber;
+	private final long _buildNanos;
+	private final long _resetNanos;
+	private final long _runNanos;
+	private final LatencyHistogram _latency;
+	private final int _warmups;
+	private final double _warmupCv;
+	private final MemoryFootprint _memory;
+
+	/**
+	 * @param stats
+	 *            the tree's counts; a snapshot is kept
+	 * @param buildNanos
+	 *            the time taken to build the tree, or -1 if a spare tree was
+	 *            reset instead
+	 * @param resetNanos
+	 *            the time taken to reset a spare tree, or -1 if the tree was
+	 *            built
+	 * @param runNanos
+	 *            the time taken by the searches of the sequence alone,
+	 *            excluding generating the keys and computing the bounds
+	 * @param latency
+	 *            the sampled search latencies, in nanoseconds
+	 * @param warmups
+	 *            the number of throwaway runs made before this one
+	 * @param warmupCv
+	 *            the coefficient of variation of the last throwaway run times
+	 * @param memory
+	 *            the memory taken and allocated by the tree, or null if it
+	 *            was not measured
+	 */
+	public ExperimentResult(TreeType treeType, SequenceType seqType,
+			int levels, int set, int reps, int shards, String seqFile,
+			long seed, SequenceParameters params, long seqSize,
+			TreeStats stats, long finger, long wilber, long buildNanos,
+			long resetNanos, long runNanos, LatencyHistogram latency,
+			int warmups, double warmupCv, MemoryFootprint memory) {
+		_treeType = treeType;
+		_seqType = seqType;
+		_levels = levels;
+		_set = set;
+		_reps = reps;
+		_shards = shards;
+		_seqFile = seqFile;
+		_seed = seed;
+		_params = params;
+
+		_seqSize = seqSize;
+		_stats = new TreeStats(stats);
+		_finger = finger;
+		_wilber = wilber;
+		_buildNanos = buildNanos;
+		_resetNanos = resetNanos;
+		_runNanos = runNanos;
+		_latency = latency;
+		_warmups = warmups;
+		_warmupCv = warmupCv;
+		_memory = memory;
+	}
+
+	/**
+	 * @return the names of the values, in the order of getValues
+	 */
+	public static String[] getColumns() {
+		return COLUMNS.clone();
+	}
+
+	/**
+	 * @return each value named by getColumns. Numbers are boxed, everything
+	 *         else is a String or null. Only one of buildnanos and resetnanos
+	 *         is set.
+	 */
+	public Object[] getValues() {
+		boolean m = (_memory != null);
+
+		return new Object[] { _treeType.toString(), _seqType.toString(),
+				_levels, _set, _reps, _shards, _seqFile, _seed,
+				_params.zipfExponent, _params.hotspotAccesses,
+				_params.hotspotKeys, _params.workingSetKeys,
+				_params.workingSetDrift, _params.phaseKeys,
+				_params.phaseLength, _params.phaseRegions,
+				_params.walkDistribution.toString(), _params.walkStep,
+				_params.jitter, _seqSize, _stats.getRotations(),
+				_stats.getTraversals(), _stats.getOtherTraversals(), _finger,
+				_wilber, (_buildNanos < 0 ? null : _buildNanos),
+				(_resetNanos < 0 ? null : _resetNanos), _runNanos,
+				_latency.getCount(),
+				_latency.getPercentile(50), _latency.getPercentile(90),
+				_latency.getPercentile(99), _latency.getPercentile(99.9),
+				_latency.getMax(), _latency.getMean(), _warmups, _warmupCv,
+				(m ? _memory.bytesPerKey : null),
+				(m ? _memory.bytesPerSearch : null),
+				(m ? _memory.bytesPerInsert : null),
+				(m ? _memory.bytesPerRemove : null) };
+	}
+
+	public TreeStats getStats() {
+		return _stats;
+	}
+
+	public long getRunNanos() {
+		return _runNanos;
+	}
+
+	public LatencyHistogram getLatency() {
+		return _latency;
+	}
+
+	public MemoryFootprint getMemory() {
+		return _memory;
+	}
+
+	@Override
+	public String toString() {
+		String fmt = "Results: treetype:%s;seqtype:%s;levels:%d;seqsize:%d;set:%d;rot:%d;trav:%d:otrav:%d;finger:%d;fingerratio:%.3f;wilber:%d;wilberratio:%.3f;nanos:%d;ops/s:%.0f;latency(ns):%s;warmups:%d;warmupcv:%.3f";
+
+		// every access costs at least one on top of its interleaves
+		long wilberCost = _wilber + _seqSize;
+
+		String results = String.format(fmt, _treeType, _seqType, _levels,
+				_seqSize, _set, _stats.getRotations(), _stats.getTraversals(),
+				_stats.getOtherTraversals(), _finger,
+				(_finger == 0 ? 0.0 : _stats.getTraversals() / (double) _finger),
+				_wilber, (wilberCost == 0 ? 0.0 : _stats.getTraversals()
+						/ (double) wilberCost), _runNanos,
+				(_runNanos == 0 ? 0.0 : _seqSize * 1e9 / _runNanos), _latency,
+				_warmups, _warmupCv);
+
+		return (_memory == null ? results : results + ";" + _memory);
+	}
+}
@@ -0,0 +1,39 @@
+package console;
+
+/**
+ * Accumulates the dynamic finger bound of an access sequence, the sum over
+ * all accesses of log(d + 1), where d is the distance in rank from the
+ * previous access. Splay trees are within a constant factor of it, so a
+ * tree's traversals divided by this bound show how well it exploits accesses
+ * near the last one. The first access is measured from the root of the
+ * initial perfect tree.
+ *
+ * Each log is taken as the bit length of d + 1, so the bound is integral and
+ * every access counts for at least 1.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class FingerBound {
+	private int _finger;
+	private long _bound = 0;
+
+	/**
+	 * @param n
+	 *            the number of keys, 1 .. n
+	 */
+	public FingerBound(int n) {
+		_finger = (int) ((n + 1L) / 2);
+	}
+
+	public void access(int key) {
+		long d = Math.abs((long) key - _finger);
+
+		_bound += 64 - Long.numberOfLeadingZeros(d + 1);
+		_finger = key;
+	}
+
+	public long getBound() {
+		return _bound;
+	}
+}
@@ -0,0 +1,104 @@
+package console;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates Wilber's first lower bound, the interleave bound, of an access
+ * sequence over the perfect reference tree holding keys 1 .. 2^levels - 1.
+ * Every node y of the reference tree splits the accesses within its subtree
+ * into those at or left of y and those right of it; the bound counts, over
+ * all nodes, how many times consecutive accesses switch between the two.
+ * Every BST needs time proportional to this bound, less the number of
+ * accesses, and Tango trees are within O(log log n) of it.
+ *
+ * Each access is charged while walking down from the root to the accessed
+ * key, in O(levels) time. The side last taken at each node is kept in a bit
+ * set, so the bound needs about n / 4 bytes; reset clears them for reuse
+ * rather than allocating them again.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class InterleaveBound {
+	private final int _levels;
+	private final int _n;
+
+	/**
+	 * Bit y is set once node y has seen an access within its subtree
+	 */
+	private final long[] _seen;
+
+	/**
+	 * Bit y is set if the last such access was right of y
+	 */
+	private final long[] _right;
+
+	private long _bound = 0;
+
+	/**
+	 * @param levels
+	 *            the number of levels of the reference tree
+	 */
+	public InterleaveBound(int levels) {
+		_levels = levels;
+		_n = (int) ((1L << levels) - 1);
+
+		_seen = new long[(_n >>> 6) + 1];
+		_right = new long[(_n >>> 6) + 1];
+	}
+
+	/**
+	 * Clears the bound for a new sequence, keeping the bit sets
+	 */
+	public void reset() {
+		Arrays.fill(_seen, 0);
+		Arrays.fill(_right, 0);
+		_bound = 0;
+	}
+
+	/**
+	 * @return the number of levels of the reference tree
+	 */
+	public int getLevels() {
+		return _levels;
+	}
+
+	/**
+	 * Charges an access. Keys outside the reference tree are ignored.
+	 */
+	public void access(int key) {
+		if (key < 1 || key > _n)
+			return;
+
+		int y = 1 << (_levels - 1);
+		int step = y >>> 1;
+
+		while (true) {
+			int word = y >>> 6;
+			long bit = 1L << y;
+			boolean right = key > y;
+
+			if ((_seen[word] & bit) == 0) {
+				_seen[word] |= bit;
+			} else if (((_right[word] & bit) != 0) != right) {
+				++_bound;
+			}
+
+			if (right) {
+				_right[word] |= bit;
+			} else {
+				_right[word] &= ~bit;
+			}
+
+			if (key == y)
+				break;
+
+			y = (right ? y + step : y - step);
+			step >>>= 1;
+		}
+	}
+
+	public long getBound() {
+		return _bound;
+	}
+}
@@ -0,0 +1,133 @@
+package console;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size, log-linear histogram of latencies in nanoseconds. Values are
+ * bucketed by their highest set bit and the SUB_BITS bits below it, so every
+ * recorded value is kept to within 1 / 2^SUB_BITS (about 3%) of itself while
+ * the whole range of a long fits in under 2000 buckets. Recording is a few
+ * shifts and an increment, cheap enough to do on every operation.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private final long[] _counts = new long[(64 - SUB_BITS + 1) * SUB_COUNT];
+
+	private long _total = 0;
+	private long _sum = 0;
+	private long _max = 0;
+
+	/**
+	 * @param nanos
+	 *            the latency to record; negative values count as 0
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+
+		++_counts[indexOf(nanos)];
+		++_total;
+		_sum += nanos;
+
+		if (nanos > _max)
+			_max = nanos;
+	}
+
+	/**
+	 * Accumulates the counts of another histogram into this one
+	 *
+	 * @param other
+	 *            the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < _counts.length; ++i) {
+			_counts[i] += other._counts[i];
+		}
+
+		_total += other._total;
+		_sum += other._sum;
+		_max = Math.max(_max, other._max);
+	}
+
+	public long getCount() {
+		return _total;
+	}
+
+	public long getMax() {
+		return _max;
+	}
+
+	public double getMean() {
+		return (_total == 0 ? 0.0 : _sum / (double) _total);
+	}
+
+	/**
+	 * @param p
+	 *            the percentile to report, in [0, 100]
+	 * @return the smallest value, to bucket precision, that at least p% of the
+	 *         recorded values do not exceed; or 0 if nothing was recorded
+	 */
+	public long getPercentile(double p) {
+		if (_total == 0)
+			return 0;
+
+		long rank = (long) Math.ceil(_total * p / 100.0);
+		long seen = 0;
+
+		if (rank < 1)
+			rank = 1;
+
+		for (int i = 0; i < _counts.length; ++i) {
+			seen += _counts[i];
+
+			if (seen >= rank)
+				return Math.min(_max, highestValueOf(i));
+		}
+
+		return _max;
+	}
+
+	public void reset() {
+		Arrays.fill(_counts, 0);
+
+		_total = 0;
+		_sum = 0;
+		_max = 0;
+	}
+
+	private static int indexOf(long v) {
+		if (v < SUB_COUNT)
+			return (int) v;
+
+		int e = 63 - Long.numberOfLeadingZeros(v);
+		int sub = (int) (v >>> (e - SUB_BITS)) & (SUB_COUNT - 1);
+
+		return (e - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	/**
+	 * @return the largest value that falls in bucket i
+	 */
+	private static long highestValueOf(int i) {
+		if (i < SUB_COUNT)
+			return i;
+
+		int e = i / SUB_COUNT + SUB_BITS - 1;
+		long sub = i % SUB_COUNT;
+		long lowest = (1L << e) | (sub << (e - SUB_BITS));
+
+		return lowest + (1L << (e - SUB_BITS)) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("p50:%d;p90:%d;p99:%d;p999:%d;max:%d;mean:%.0f",
+				getPercentile(50), getPercentile(90), getPercentile(99),
+				getPercentile(99.9), getMax(), getMean());
+	}
+}
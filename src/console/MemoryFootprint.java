@@ -0,0 +1,38 @@
+package console;
+
+/**
+ * The memory a tree takes, and allocates as it is used, as measured by an
+ * Experiment with MemoryMeter. A figure that could not be measured is NaN:
+ * the operations of sharded trees allocate on the shards' own threads, and
+ * Tango trees do not support insert and remove.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class MemoryFootprint {
+
+	/**
+	 * Bytes of heap retained by the tree once built, per key; nil leaves,
+	 * values and, for sharded trees, the shards' queues are included
+	 */
+	public final double bytesPerKey;
+
+	public final double bytesPerSearch;
+	public final double bytesPerInsert;
+	public final double bytesPerRemove;
+
+	public MemoryFootprint(double bytesPerKey, double bytesPerSearch,
+			double bytesPerInsert, double bytesPerRemove) {
+		this.bytesPerKey = bytesPerKey;
+		this.bytesPerSearch = bytesPerSearch;
+		this.bytesPerInsert = bytesPerInsert;
+		this.bytesPerRemove = bytesPerRemove;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"bytes/key:%.1f;bytes/search:%.2f;bytes/insert:%.2f;bytes/remove:%.2f",
+				bytesPerKey, bytesPerSearch, bytesPerInsert, bytesPerRemove);
+	}
+}
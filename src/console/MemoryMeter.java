@@ -0,0 +1,87 @@
+package console;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the bytes allocated by the calling thread, through the allocation
+ * counters that HotSpot adds to ThreadMXBean. Unlike the used heap, the
+ * count is not disturbed by other threads or by the collector, so it can be
+ * read around any stretch of code while other experiments run.
+ *
+ * The bytes retained by a structure are measured from the used heap instead,
+ * after collecting the garbage. Other threads do disturb that, so it is only
+ * meaningful while nothing else runs.
+ *
+ * @author Gregory Bint
+ *
+ */
+public final class MemoryMeter {
+
+	/**
+	 * The most collections made while waiting for the used heap to settle
+	 */
+	private static final int MAX_COLLECTIONS = 8;
+
+	private static final com.sun.management.ThreadMXBean _threads = open();
+
+	private static final MemoryMXBean _memory = ManagementFactory
+			.getMemoryMXBean();
+
+	private MemoryMeter() {
+	}
+
+	private static com.sun.management.ThreadMXBean open() {
+		ThreadMXBean t = ManagementFactory.getThreadMXBean();
+
+		if (!(t instanceof com.sun.management.ThreadMXBean))
+			return null;
+
+		com.sun.management.ThreadMXBean st = (com.sun.management.ThreadMXBean) t;
+
+		if (!st.isThreadAllocatedMemorySupported())
+			return null;
+
+		if (!st.isThreadAllocatedMemoryEnabled())
+			st.setThreadAllocatedMemoryEnabled(true);
+
+		return st;
+	}
+
+	/**
+	 * @return true if this JVM counts the bytes allocated by each thread
+	 */
+	public static boolean isSupported() {
+		return _threads != null;
+	}
+
+	/**
+	 * @return the bytes allocated by the calling thread since it started
+	 */
+	public static long allocatedBytes() {
+		return _threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Collects the garbage until the used heap stops shrinking
+	 *
+	 * @return the bytes of heap still in use, which are all reachable
+	 */
+	public static long retainedBytes() {
+		long used = Long.MAX_VALUE;
+
+		for (int i = 0; i < MAX_COLLECTIONS; ++i) {
+			_memory.gc();
+
+			long now = _memory.getHeapMemoryUsage().getUsed();
+
+			if (now >= used)
+				return now;
+
+			used = now;
+		}
+
+		return used;
+	}
+}
@@ -0,0 +1,92 @@
+package console;
+
+import tango.BasicBST;
+import tango.BinarySearchTree;
+import tango.OptimisticReadTree;
+import tango.RedBlackTree;
+
+/**
+ * Measures how search throughput of an OptimisticReadTree grows with the
+ * number of reader threads. For each thread count, every reader searches
+ * uniformly random keys for a fixed time, and the total searches per second is
+ * printed along with the speedup over a single reader. With no writers
+ * running, the speedup should be close to the thread count up to the number of
+ * cores available.
+ *
+ * Usage: java console.ReadScalingMain [treetype] [levels] [maxthreads]
+ * [millis]
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ReadScalingMain {
+
+	private static TreeType _treeType = TreeType.REDBLACK;
+	private static int _levels = 20;
+	private static int _maxThreads = Runtime.getRuntime()
+			.availableProcessors();
+	private static long _millis = 2000;
+
+	public static void main(String[] args) throws InterruptedException {
+		parseCommandLine(args);
+
+		int keys = (int) ((1L << _levels) - 1);
+
+		BinarySearchTree t = new OptimisticReadTree(createTree());
+		t.initializePerfectTree(_levels);
+
+		System.out.println(String.format(
+				"treetype:%s;levels:%d;cores:%d;millis:%d", _treeType,
+				_levels, Runtime.getRuntime().availableProcessors(), _millis));
+
+		// one untimed round, so that the timed ones run compiled code
+		Throughput.measureSearches(t, keys, _maxThreads, _millis);
+
+		double base = 0;
+
+		for (int threads = 1; threads <= _maxThreads; ++threads) {
+			double rate = Throughput.measureSearches(t, keys, threads,
+					_millis);
+
+			if (threads == 1)
+				base = rate;
+
+			System.out.println(String.format(
+					"threads:%d;searches/s:%.0f;speedup:%.2f", threads, rate,
+					rate / base));
+		}
+	}
+
+	private static BinarySearchTree createTree() {
+		if (_treeType == TreeType.REDBLACK) {
+			return new RedBlackTree();
+		} else if (_treeType == TreeType.BASIC) {
+			return new BasicBST();
+		}
+
+		printUsage();
+		System.exit(2);
+		return null;
+	}
+
+	private static void parseCommandLine(String[] args) {
+		try {
+			if (args.length > 0)
+				_treeType = TreeType.fromString(args[0]);
+			if (args.length > 1)
+				_levels = Integer.parseInt(args[1]);
+			if (args.length > 2)
+				_maxThreads = Integer.parseInt(args[2]);
+			if (args.length > 3)
+				_millis = Long.parseLong(args[3]);
+		} catch (NumberFormatException e) {
+			printUsage();
+			System.exit(1);
+		}
+	}
+
+	private static void printUsage() {
+		System.out
+				.println("Usage: java console.ReadScalingMain [RedBlack|Basic] [levels] [maxthreads] [millis]");
+	}
+}
@@ -0,0 +1,60 @@
+package console;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.PropertyConfigurator;
+
+/**
+ * Startup class for replaying a timestamped trace against a tree. Takes the
+ * same command line as StatMain; see ReplayRunner for the settings.
+ * 
+ * @author Gregory Bint
+ * 
+ */
+public class ReplayMain {
+	private static final Logger log = Logger.getLogger(ReplayMain.class);
+
+	private static String _configFile;
+
+	public static void main(String[] args) {
+		parseCommandLine(args);
+
+		startLog4j();
+
+		GlobalConfig.initialize(_configFile);
+
+		ReplayRunner rr = new ReplayRunner();
+
+		rr.start();
+
+		log.info("Finished.");
+	}
+
+	private static void startLog4j() {
+		PropertyConfigurator.configure(_configFile);
+	}
+
+	private static void parseCommandLine(String[] args) {
+		if (args.length < 2 || 0 != (args.length % 2)) {
+			printUsage();
+			System.exit(1);
+		}
+
+		for (int i = 0; i < args.length / 2; ++i) {
+			String arg = args[2 * i];
+			String val = args[(2 * i) + 1];
+
+			if ("-c".equals(arg)) {
+				_configFile = val;
+			} else {
+				printUsage();
+				System.exit(2);
+			}
+		}
+	}
+
+	private static void printUsage() {
+		System.out
+				.println("Usage: java console.ReplayMain -c <config_file>");
+	}
+
+}
@@ -0,0 +1,307 @@
+package console;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import tango.BinarySearchTree;
+
+/**
+ * Replays a timestamped trace of searches against a tree, at the trace's own
+ * pace, faster, or as fast as possible, and reports the latency of the
+ * searches.
+ *
+ * The trace is a text file with one "time key" pair per line, separated by
+ * whitespace, the time in microseconds from any fixed origin. Pacing is open
+ * loop: search i is due at (time_i - time_0) / speed after the start, whether
+ * or not the earlier searches are done. Latency is measured from when a
+ * search was due, not from when it happened to be issued, so a slow search
+ * also charges the searches stuck behind it (the correction for coordinated
+ * omission). Service times, measured from the actual issue, are reported
+ * alongside for comparison.
+ *
+ * The trace is streamed in chunks of TRACE_CHUNK searches, so that it need not
+ * fit in memory. The next chunk is read and parsed in the background while the
+ * current one is replayed, so that reading and parsing do not delay the paced
+ * searches.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ReplayRunner {
+	private static final Logger log = Logger.getLogger(ReplayRunner.class);
+
+	private static final String cTreeType = ReplayRunner.class
+			.getSimpleName() + ".treeType";
+	private static final String cLevels = ReplayRunner.class.getSimpleName()
+			+ ".levels";
+	private static final String cTraceFile = ReplayRunner.class
+			.getSimpleName() + ".traceFile";
+	private static final String cSpeed = ReplayRunner.class.getSimpleName()
+			+ ".speed";
+
+	/**
+	 * Waits shorter than this are spun out rather than parked, since waking
+	 * from a park takes about this long
+	 */
+	private static final long SPIN_NANOS = 50000;
+
+	/**
+	 * The number of searches parsed ahead of the replay at a time
+	 */
+	private static final int TRACE_CHUNK = 1 << 16;
+
+	/*
+	 * Config
+	 */
+	private TreeType _treeType;
+	private int _levels;
+	private String _traceFile;
+	private double _speed = 1.0;
+
+	/*
+	 * Current run
+	 */
+	private BinarySearchTree _tree;
+	private BufferedReader _trace;
+	private long _firstMicros;
+	private long _lines = 0;
+	private final LatencyHistogram _latency = new LatencyHistogram();
+	private final LatencyHistogram _service = new LatencyHistogram();
+
+	public void start() {
+		loadConfiguration();
+
+		_tree = _treeType.newTree();
+		_tree.initializePerfectTree(_levels);
+
+		replay();
+
+		printResults();
+	}
+
+	private void loadConfiguration() {
+		Config c = GlobalConfig.getInstance();
+
+		/*
+		 * Parse config
+		 */
+		try {
+
+			_treeType = TreeType.fromString(c.getConfig(cTreeType));
+			_levels = Integer.parseInt(c.getConfig(cLevels));
+			_traceFile = c.getConfig(cTraceFile).trim();
+
+			if (c.hasConfig(cSpeed)) {
+				_speed = Double.parseDouble(c.getConfig(cSpeed));
+			}
+
+		} catch (NumberFormatException e) {
+			log.fatal(e.getMessage());
+			System.exit(-1);
+		} catch (ItemNotFoundException e) {
+			log.fatal(e.getMessage());
+			System.exit(-1);
+		}
+
+		/*
+		 * Check other conditions
+		 */
+		if (_treeType == TreeType.UNKNOWN) {
+			log.fatal("Unknown Tree Type.");
+			System.exit(-1);
+		}
+
+		if (_levels < 1 || _levels > BinarySearchTree.MAX_LEVELS) {
+			log.fatal("levels must be within [1, "
+					+ BinarySearchTree.MAX_LEVELS + "]");
+			System.exit(-1);
+		}
+
+		if (!(_speed >= 0)) {
+			log.fatal("speed must be >= 0, where 0 replays unthrottled");
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * The parsed searches of one chunk of the trace
+	 */
+	private static class TraceChunk {
+		final int[] keys = new int[TRACE_CHUNK];
+
+		/**
+		 * The time at which each search is due after the start of the replay
+		 */
+		final long[] dueNanos = new long[TRACE_CHUNK];
+
+		int count = 0;
+	}
+
+	private void openTrace() {
+		try {
+			_trace = new BufferedReader(new FileReader(_traceFile));
+		} catch (FileNotFoundException e) {
+			log.fatal(_traceFile + " could not be found for opening");
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Parses the next searches of the trace into chunk, until it is full or
+	 * the trace ends. Chunks must be read one at a time, in order.
+	 *
+	 * @return chunk, whose count is 0 once the trace has ended
+	 */
+	private TraceChunk readChunk(TraceChunk chunk) {
+		int n = (int) ((1L << _levels) - 1);
+		String line = "";
+
+		chunk.count = 0;
+
+		if (_trace == null)
+			return chunk;
+
+		try {
+			while (chunk.count < TRACE_CHUNK
+					&& (line = _trace.readLine()) != null) {
+				line = line.trim();
+
+				if (line.length() == 0)
+					continue;
+
+				String[] parts = line.split("\\s+");
+
+				if (parts.length != 2)
+					throw new NumberFormatException();
+
+				long micros = Long.parseLong(parts[0]);
+				int key = Integer.parseInt(parts[1]);
+
+				if (key < 1 || key > n) {
+					log.fatal("Key " + key + " is not in the tree");
+					System.exit(-1);
+				}
+
+				if (_lines++ == 0)
+					_firstMicros = micros;
+
+				chunk.keys[chunk.count] = key;
+
+				if (_speed > 0)
+					chunk.dueNanos[chunk.count] = (long) ((micros - _firstMicros)
+							* 1000.0 / _speed);
+
+				++chunk.count;
+			}
+
+			if (line == null) {
+				_trace.close();
+				_trace = null;
+			}
+
+		} catch (NumberFormatException e) {
+			log.fatal("Error parsing '" + line + "' from trace");
+			System.exit(-1);
+		} catch (IOException e) {
+			log.fatal("IOException processing trace");
+			System.exit(-1);
+		}
+
+		return chunk;
+	}
+
+	/**
+	 * @return the next chunk of the trace, parsed into chunk in the background
+	 */
+	private CompletableFuture<TraceChunk> readAhead(final TraceChunk chunk) {
+		return CompletableFuture.supplyAsync(new Supplier<TraceChunk>() {
+			@Override
+			public TraceChunk get() {
+				return readChunk(chunk);
+			}
+		});
+	}
+
+	private void replay() {
+		openTrace();
+
+		TraceChunk chunk = readChunk(new TraceChunk());
+		TraceChunk spare = new TraceChunk();
+		long done = 0;
+
+		log.info("Replaying " + _traceFile + " against " + _treeType
+				+ (_speed == 0 ? " unthrottled" : " at speed " + _speed));
+
+		long startNanos = System.nanoTime();
+
+		try {
+			while (chunk.count > 0) {
+				CompletableFuture<TraceChunk> next = readAhead(spare);
+
+				for (int i = 0; i < chunk.count; ++i, ++done) {
+					long now = System.nanoTime();
+					long due = now;
+
+					if (_speed > 0) {
+						due = startNanos + chunk.dueNanos[i];
+
+						now = waitUntil(due);
+					}
+
+					_tree.search(chunk.keys[i]);
+
+					long end = System.nanoTime();
+
+					_latency.record(end - due);
+					_service.record(end - now);
+				}
+
+				// the chunk just replayed is refilled after the next one
+				spare = chunk;
+				chunk = next.join();
+			}
+
+		} catch (AssertionError e) {
+			log.fatal("Assertion Failure: " + e.getMessage());
+
+			// but, we report what we have
+		}
+
+		long elapsed = System.nanoTime() - startNanos;
+
+		log.info(String.format("Replayed %d searches in %.3f s (%.0f/s)",
+				done, elapsed / 1e9, done * 1e9 / Math.max(1, elapsed)));
+	}
+
+	/**
+	 * @return the time at which the wait ended, no earlier than due
+	 */
+	private static long waitUntil(long due) {
+		long now = System.nanoTime();
+
+		while (now < due) {
+			if (due - now > 2 * SPIN_NANOS) {
+				LockSupport.parkNanos(due - now - SPIN_NANOS);
+			}
+
+			now = System.nanoTime();
+		}
+
+		return now;
+	}
+
+	private void printResults() {
+		String fmt = "Replay: treetype:%s;levels:%d;speed:%s;ops:%d;latency(ns):%s;service(ns):%s";
+
+		log.info(String.format(fmt, _treeType, _levels, (_speed == 0 ? "max"
+				: Double.toString(_speed)), _latency.getCount(), _latency,
+				_service));
+	}
+}
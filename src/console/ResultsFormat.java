@@ -0,0 +1,29 @@
+package console;
+
+public enum ResultsFormat {
+
+	CSV("CSV"), JSON("JSON"), UNKNOWN("Unknown");
+
+	private String _str;
+
+	private ResultsFormat(String str) {
+		_str = str;
+	}
+
+	public static ResultsFormat fromString(String str) {
+		str = str.trim();
+
+		for (ResultsFormat f : ResultsFormat.values()) {
+			if (str.equalsIgnoreCase(f._str))
+				return f;
+		}
+
+		return UNKNOWN;
+	}
+
+	@Override
+	public String toString() {
+		return _str;
+	}
+
+}
@@ -0,0 +1,234 @@
+package console;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes ExperimentResults to a file as they arrive, one per line, either as
+ * CSV with a header row or as JSON objects. Formatting and writing happen on
+ * a writer thread of the sink's own, so submitting a result only costs a
+ * queue insertion.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ResultsSink {
+
+	/**
+	 * Queued by close to tell the writer thread to finish
+	 */
+	private static final Object END = new Object();
+
+	private final ResultsFormat _format;
+	private final Writer _out;
+	private final BlockingQueue<Object> _queue = new LinkedBlockingQueue<Object>();
+	private final Thread _writer;
+
+	/**
+	 * Set by the writer thread if writing fails; later results are dropped
+	 */
+	private volatile IOException _failure = null;
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+
+	/**
+	 * Creates, or truncates, the file and starts the writer thread
+	 *
+	 * @param file
+	 *            the file to write to
+	 * @param format
+	 *            CSV or JSON
+	 * @throws IOException
+	 *             if the file cannot be created
+	 */
+	public ResultsSink(String file, ResultsFormat format) throws IOException {
+		if (format != ResultsFormat.CSV && format != ResultsFormat.JSON)
+			throw new IllegalArgumentException("Unhandled results format "
+					+ format);
+
+		_format = format;
+		_out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+				file), StandardCharsets.UTF_8));
+
+		_writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeAll();
+			}
+		}, "ResultsSink");
+
+		_writer.setDaemon(true);
+		_writer.start();
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Sink
+	 */
+
+	/**
+	 * Queues a result for writing, without waiting for it to be written
+	 */
+	public void submit(ExperimentResult r) {
+		_queue.add(r);
+	}
+
+	/**
+	 * Writes out every result submitted so far and closes the file
+	 *
+	 * @throws IOException
+	 *             if any result could not be written
+	 */
+	public void close() throws IOException {
+		_queue.add(END);
+
+		try {
+			_writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for the results writer");
+		}
+
+		if (_failure != null)
+			throw _failure;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Writer Thread
+	 */
+
+	private void writeAll() {
+		try {
+			try {
+				if (_format == ResultsFormat.CSV)
+					writeCsvRow(ExperimentResult.getColumns());
+
+				while (true) {
+					Object o = _queue.take();
+
+					if (o == END)
+						break;
+
+					ExperimentResult r = (ExperimentResult) o;
+
+					if (_format == ResultsFormat.CSV) {
+						writeCsvRow(r.getValues());
+					} else {
+						writeJsonObject(ExperimentResult.getColumns(),
+								r.getValues());
+					}
+
+					// results come seldom enough that each can be flushed,
+					// which keeps a crashed sweep's file up to date
+					if (_queue.isEmpty())
+						_out.flush();
+				}
+			} finally {
+				_out.close();
+			}
+		} catch (IOException e) {
+			_failure = e;
+		} catch (InterruptedException e) {
+			_failure = new IOException("Results writer interrupted");
+		}
+	}
+
+	private void writeCsvRow(Object[] values) throws IOException {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < values.length; ++i) {
+			if (i > 0)
+				sb.append(',');
+
+			if (values[i] != null)
+				sb.append(csvField(values[i].toString()));
+		}
+
+		sb.append('\n');
+		_out.write(sb.toString());
+	}
+
+	private void writeJsonObject(String[] names, Object[] values)
+			throws IOException {
+		StringBuilder sb = new StringBuilder("{");
+
+		for (int i = 0; i < names.length; ++i) {
+			if (i > 0)
+				sb.append(',');
+
+			sb.append(jsonString(names[i])).append(':');
+
+			if (values[i] == null || isNonFinite(values[i])) {
+				// JSON has no NaN or infinities
+				sb.append("null");
+			} else if (values[i] instanceof Number) {
+				sb.append(values[i]);
+			} else {
+				sb.append(jsonString(values[i].toString()));
+			}
+		}
+
+		sb.append("}\n");
+		_out.write(sb.toString());
+	}
+
+	private static boolean isNonFinite(Object o) {
+		return (o instanceof Double && (((Double) o).isNaN() || ((Double) o)
+				.isInfinite()));
+	}
+
+	/**
+	 * Quotes a field if it holds a comma, quote or line break
+	 */
+	static String csvField(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0
+				&& s.indexOf('\r') < 0)
+			return s;
+
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
+	static String jsonString(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+
+		return sb.append('"').toString();
+	}
+}
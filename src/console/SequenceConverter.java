@@ -0,0 +1,100 @@
+package console;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.PrimitiveIterator;
+
+import org.apache.log4j.BasicConfigurator;
+
+/**
+ * Converts a text sequence file, one key per line, into the binary format
+ * read by the BinaryFile sequence type: little-endian int32 keys with no
+ * header.
+ *
+ * Usage: java console.SequenceConverter <text_file> <binary_file>
+ *
+ * @author Gregory Bint
+ *
+ */
+public class SequenceConverter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			printUsage();
+			System.exit(1);
+		}
+
+		// parse errors in the text file are logged
+		BasicConfigurator.configure();
+
+		try {
+			long n = convert(args[0], args[1]);
+
+			System.out.println("Wrote " + n + " keys to " + args[1]);
+		} catch (FileNotFoundException e) {
+			System.out.println(e.getMessage());
+			System.exit(2);
+		} catch (IOException e) {
+			System.out.println("IOException writing " + args[1] + ": "
+					+ e.getMessage());
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * @param textFile
+	 *            the file to read
+	 * @param binaryFile
+	 *            the file to write, replacing any existing one
+	 * @return the number of keys converted
+	 */
+	public static long convert(String textFile, String binaryFile)
+			throws IOException {
+		PrimitiveIterator.OfInt keys = SequenceGenerator.fromTextFile(textFile);
+
+		FileOutputStream out = new FileOutputStream(binaryFile);
+		FileChannel ch = out.getChannel();
+
+		ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		long n = 0;
+
+		try {
+			while (keys.hasNext()) {
+				if (buf.remaining() < 4)
+					flush(ch, buf);
+
+				buf.putInt(keys.nextInt());
+				++n;
+			}
+
+			flush(ch, buf);
+		} finally {
+			out.close();
+		}
+
+		return n;
+	}
+
+	private static void flush(FileChannel ch, ByteBuffer buf)
+			throws IOException {
+		buf.flip();
+
+		while (buf.hasRemaining()) {
+			ch.write(buf);
+		}
+
+		buf.clear();
+	}
+
+	private static void printUsage() {
+		System.out
+				.println("Usage: java console.SequenceConverter <text_file> <binary_file>");
+	}
+}
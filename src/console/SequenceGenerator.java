@@ -0,0 +1,922 @@
+package console;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Generates the access sequences, one key at a time where possible so that
+ * sequences never need to be held in memory. Only permutations are
+ * materialized, as an int[].
+ *
+ * Random sequences are cut into fixed-size chunks, and every chunk draws from
+ * its own SplittableRandom whose seed is derived from the sequence seed and the
+ * chunk's index alone. Which thread generates a chunk, and when, therefore has
+ * no effect on the output: the same seed always gives the same sequence,
+ * whether it is generated in parallel or streamed.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class SequenceGenerator {
+	private static final Logger log = Logger.getLogger(SequenceGenerator.class);
+
+	/**
+	 * The number of keys handled by one chunk
+	 */
+	public static final int CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * The number of chunks of a stateless stream filled ahead of its reader
+	 */
+	private static final int LOOKAHEAD = Math.min(4, Runtime.getRuntime()
+			.availableProcessors());
+
+	/**
+	 * The number of keys mapped at a time from a binary sequence file. A
+	 * single mapping cannot exceed 2 GB, so larger files are walked through in
+	 * windows of this size.
+	 */
+	private static final int MAP_WINDOW = 1 << 28;
+
+	/**
+	 * The longest array that every VM will allocate, a little short of
+	 * Integer.MAX_VALUE. A tree of 31 levels has more keys than this.
+	 */
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	private SequenceGenerator() {
+		// static only
+	}
+
+	/**
+	 * Derives an independent seed from a parent seed and an index, using the
+	 * SplitMix64 finalizer, so that neighbouring indices give unrelated seeds.
+	 *
+	 * @param seed
+	 *            the parent seed
+	 * @param index
+	 *            which child seed to produce
+	 * @return the child seed
+	 */
+	public static long deriveSeed(long seed, long index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+		return z ^ (z >>> 31);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Streaming Sequences
+	 */
+
+	/**
+	 * @return the keys 1 .. n in increasing order
+	 */
+	public static PrimitiveIterator.OfInt increasing(final int n) {
+		return new PrimitiveIterator.OfInt() {
+			// a long, so that stepping past Integer.MAX_VALUE ends the stream
+			private long _next = 1;
+
+			@Override
+			public boolean hasNext() {
+				return _next <= n;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_next > n)
+					throw new NoSuchElementException();
+
+				return (int) _next++;
+			}
+		};
+	}
+
+	/**
+	 * @return the keys n .. 1 in decreasing order
+	 */
+	public static PrimitiveIterator.OfInt decreasing(final int n) {
+		return new PrimitiveIterator.OfInt() {
+			private int _next = n;
+
+			@Override
+			public boolean hasNext() {
+				return _next >= 1;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_next < 1)
+					throw new NoSuchElementException();
+
+				return _next--;
+			}
+		};
+	}
+
+	/**
+	 * The keys 1 .. n visited in sqrt(n) strided passes: 1, 1 + s, 1 + 2s, ...
+	 * then 2, 2 + s, ... where s = floor(sqrt(n)).
+	 */
+	public static PrimitiveIterator.OfInt squareRoot(final int n) {
+		final int sqr = (int) (Math.floor(Math.sqrt(n)));
+
+		return new PrimitiveIterator.OfInt() {
+			private int _start = 1;
+			private long _next = 1;
+
+			@Override
+			public boolean hasNext() {
+				return _start <= sqr && _next <= n;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				int val = (int) _next;
+
+				_next += sqr;
+
+				if (_next > n) {
+					++_start;
+					_next = _start;
+				}
+
+				return val;
+			}
+		};
+	}
+
+	/**
+	 * Streams n keys drawn uniformly and independently from [1, n]
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt randomStream(final int n,
+			final long seed) {
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				return rnd.nextInt(n) + 1;
+			}
+		};
+	}
+
+	/**
+	 * Streams n keys whose popularity follows a Zipf distribution. The ranks
+	 * are scattered over the key space by a seeded bijection, so the popular
+	 * keys are not also neighbours.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param exponent
+	 *            the skew of the distribution
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt zipf(final int n, double exponent,
+			long seed) {
+		final ZipfSampler sampler = new ZipfSampler(n, exponent);
+		final long salt = deriveSeed(seed, -1);
+		final long mask = scatterMask(n);
+
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				return scatter(sampler.sample(rnd), n, salt, mask);
+			}
+		};
+	}
+
+	/**
+	 * Streams n keys of which a given fraction fall in a contiguous hot range
+	 * of keys, and the rest anywhere outside it. The hot range is placed at a
+	 * seeded random position.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param accesses
+	 *            the fraction of keys in the sequence that are hot
+	 * @param keys
+	 *            the fraction of 1 .. n that is hot
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt hotspot(final int n,
+			final double accesses, double keys, long seed) {
+		final int hot = (int) Math.max(1, Math.min(n, Math.round(keys * n)));
+		final int start = 1 + new SplittableRandom(deriveSeed(seed, -1))
+				.nextInt(n - hot + 1);
+
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				if (hot == n || rnd.nextDouble() < accesses) {
+					return start + rnd.nextInt(hot);
+				}
+
+				// skip over the hot range
+				int k = rnd.nextInt(n - hot) + 1;
+
+				return (k < start ? k : k + hot);
+			}
+		};
+	}
+
+	/**
+	 * Streams n keys of a random walk over 1 .. n, starting from a seeded
+	 * random key and reflecting off both ends.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param steps
+	 *            the distribution of the steps
+	 * @param scale
+	 *            the size of the steps
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt randomWalk(final int n,
+			final StepDistribution steps, final double scale, long seed) {
+		final int origin = 1 + new SplittableRandom(deriveSeed(seed, -1))
+				.nextInt(n);
+
+		return new ChunkedStream(n, seed) {
+			private long _key = origin;
+
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				if (i > 0) {
+					_key += steps.sample(rnd, scale);
+
+					// reflect back into 1 .. n
+					while (n > 1 && (_key < 1 || _key > n)) {
+						_key = (_key < 1 ? 2 - _key : 2L * n - _key);
+					}
+
+					if (n == 1)
+						_key = 1;
+				}
+
+				return (int) _key;
+			}
+		};
+	}
+
+	/**
+	 * Streams a scan through the keys from a seeded random start, wrapping
+	 * around at n, where each access is displaced by up to jitter keys either
+	 * way. A jitter above n / 2 is clamped to it, as the displacements then
+	 * already reach every key.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param jitter
+	 *            the largest displacement
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt sequentialJitter(final int n,
+			final int jitter, long seed) {
+		final int origin = new SplittableRandom(deriveSeed(seed, -1))
+				.nextInt(n);
+
+		final int reach = Math.min(jitter, n / 2);
+
+		// at most n, so the bound fits an int once computed in a long
+		final int span = (int) (2L * reach + 1);
+
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				long k = (long) origin + i + rnd.nextInt(span) - reach;
+
+				return 1 + (int) (((k % n) + n) % n);
+			}
+		};
+	}
+
+	/**
+	 * The keys of a perfect tree in bit-reversal order: the i-th key is i with
+	 * its levels bits reversed, skipping 0. Consecutive keys fall on opposite
+	 * sides of the root, and recursively of every node below it, which makes
+	 * this Wilber's classic worst case for the interleave lower bound.
+	 *
+	 * @param levels
+	 *            the number of levels of the tree, holding keys 1 ..
+	 *            2^levels - 1
+	 */
+	public static PrimitiveIterator.OfInt bitReversal(final int levels) {
+		final long end = 1L << levels;
+
+		return new PrimitiveIterator.OfInt() {
+			// reversing 0 gives 0, which is not a key
+			private long _i = 1;
+
+			@Override
+			public boolean hasNext() {
+				return _i < end;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_i >= end)
+					throw new NoSuchElementException();
+
+				return reverse((int) _i++, levels);
+			}
+		};
+	}
+
+	/**
+	 * Streams length accesses to the leaves of a perfect tree, cycling through
+	 * them in bit-reversal order. Once every leaf has been seen, each access
+	 * flips the preferred child of every node on its path, giving levels - 1
+	 * interleaves per access, the most that any sequence can.
+	 *
+	 * @param levels
+	 *            the number of levels of the tree, holding keys 1 ..
+	 *            2^levels - 1
+	 * @param length
+	 *            the length of the sequence
+	 */
+	public static PrimitiveIterator.OfInt interleave(final int levels,
+			final int length) {
+		final int leaves = 1 << (levels - 1);
+
+		return new PrimitiveIterator.OfInt() {
+			private int _i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _i < length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_i >= length)
+					throw new NoSuchElementException();
+
+				int leaf = reverse(_i++ % leaves, levels - 1);
+
+				// the leaves are the odd keys
+				return 2 * leaf + 1;
+			}
+		};
+	}
+
+	/**
+	 * Streams a uniformly scattered permutation of 1 .. n. Up to
+	 * MAX_ARRAY_LENGTH keys this is the permutation(n, seed) array. Beyond
+	 * that, where no array can hold it, each position is instead mapped to its
+	 * key by a seeded bijection, which takes no memory but is a fixed
+	 * scrambling rather than a uniformly random permutation.
+	 *
+	 * @param n
+	 *            the number of keys to permute
+	 * @param seed
+	 *            the seed of the permutation
+	 */
+	public static PrimitiveIterator.OfInt permutationStream(final int n,
+			long seed) {
+		if (n <= MAX_ARRAY_LENGTH)
+			return of(permutation(n, seed));
+
+		final long salt1 = deriveSeed(seed, -1);
+		final long salt2 = deriveSeed(seed, -2);
+		final long mask = scatterMask(n);
+
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				// one round leaves neighbours close, so mix twice
+				return scatter(scatter(i + 1, n, salt1, mask), n, salt2, mask);
+			}
+		};
+	}
+
+	/**
+	 * @return the smallest mask of low bits that covers every key 1 .. n
+	 */
+	private static long scatterMask(int n) {
+		return (Long.highestOneBit(n) << 1) - 1L;
+	}
+
+	/**
+	 * Maps x onto 1 .. n by a permutation of [0, mask], applied again until it
+	 * lands in 1 .. n. Over x in 1 .. n this is itself a permutation.
+	 */
+	private static int scatter(long x, int n, long salt, long mask) {
+		final int shift = Math.max(1, Long.bitCount(mask) / 2);
+
+		do {
+			x = ((x ^ salt) * 0x9E3779B97F4A7C15L) & mask;
+			x ^= x >>> shift;
+		} while (x == 0 || x > n);
+
+		return (int) x;
+	}
+
+	/**
+	 * @return the lowest bits of x, in reverse order
+	 */
+	private static int reverse(int x, int bits) {
+		if (bits == 0)
+			return 0;
+
+		return Integer.reverse(x) >>> (32 - bits);
+	}
+
+	/**
+	 * Streams n keys drawn uniformly from a window of keys that slides along
+	 * the key space as the sequence goes on, wrapping around at n. At any time
+	 * the recent accesses form a small working set, which is gradually
+	 * replaced.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param size
+	 *            the number of keys in the window
+	 * @param drift
+	 *            how many keys the window moves per access
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt workingSet(final int n,
+			final int size, final double drift, long seed) {
+		final int w = Math.max(1, Math.min(n, size));
+		final int origin = new SplittableRandom(deriveSeed(seed, -1))
+				.nextInt(n);
+
+		return new ChunkedStream(n, seed, true) {
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				long start = origin + (long) (i * drift);
+
+				return 1 + (int) ((start + rnd.nextInt(w)) % n);
+			}
+		};
+	}
+
+	/**
+	 * Streams n keys in phases of a fixed length. There are a few hot regions
+	 * of keys, and each phase picks one of them at random and draws all its
+	 * keys uniformly from it, so the hot region shifts abruptly at every phase
+	 * boundary and earlier regions come back.
+	 *
+	 * @param n
+	 *            the length of the sequence, and the largest key
+	 * @param size
+	 *            the number of keys in each hot region
+	 * @param length
+	 *            the number of accesses in each phase
+	 * @param regions
+	 *            the number of hot regions to pick from
+	 * @param seed
+	 *            the seed of the sequence
+	 */
+	public static PrimitiveIterator.OfInt phases(final int n, int size,
+			final int length, int regions, long seed) {
+		final int w = Math.max(1, Math.min(n, size));
+		final int[] starts = new int[regions];
+		final long phaseSeed = deriveSeed(seed, -2);
+
+		SplittableRandom placement = new SplittableRandom(deriveSeed(seed, -1));
+
+		for (int r = 0; r < regions; ++r) {
+			starts[r] = 1 + placement.nextInt(n - w + 1);
+		}
+
+		return new ChunkedStream(n, seed) {
+			private int _phase = -1;
+			private int _start;
+
+			@Override
+			protected int next(SplittableRandom rnd, int i) {
+				if (i / length != _phase) {
+					// the region of a phase depends on nothing but its index
+					_phase = i / length;
+					_start = starts[new SplittableRandom(deriveSeed(phaseSeed,
+							_phase)).nextInt(starts.length)];
+				}
+
+				return _start + rnd.nextInt(w);
+			}
+		};
+	}
+
+	/**
+	 * @return the keys of seq, in order
+	 */
+	public static PrimitiveIterator.OfInt of(final int[] seq) {
+		return new PrimitiveIterator.OfInt() {
+			private int _i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _i < seq.length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_i >= seq.length)
+					throw new NoSuchElementException();
+
+				return seq[_i++];
+			}
+		};
+	}
+
+	/**
+	 * Streams a text file holding one key per line. A line that is not a
+	 * number, or failing to read the file, is fatal.
+	 *
+	 * @param file
+	 *            the name of the file
+	 * @throws FileNotFoundException
+	 *             if the file cannot be opened
+	 */
+	public static PrimitiveIterator.OfInt fromTextFile(final String file)
+			throws FileNotFoundException {
+		final BufferedReader br = new BufferedReader(new FileReader(file));
+
+		return new PrimitiveIterator.OfInt() {
+			private String _line = readLine();
+
+			@Override
+			public boolean hasNext() {
+				return _line != null;
+			}
+
+			@Override
+			public int nextInt() {
+				if (_line == null)
+					throw new NoSuchElementException();
+
+				int key = 0;
+
+				try {
+					key = Integer.parseInt(_line.trim());
+				} catch (NumberFormatException e) {
+					log.fatal("Error parsing '" + _line + "' from file");
+					System.exit(-1);
+				}
+
+				_line = readLine();
+
+				return key;
+			}
+
+			private String readLine() {
+				try {
+					String line = br.readLine();
+
+					if (line == null)
+						br.close();
+
+					return line;
+				} catch (IOException e) {
+					log.fatal("IOException processing file");
+					System.exit(-1);
+					return null;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Streams a binary file of little-endian int32 keys, with no header. The
+	 * file is memory mapped a window at a time, so keys are read at memory
+	 * speed without any parsing. Failing to map the file is fatal.
+	 *
+	 * @param file
+	 *            the name of the file
+	 * @throws IOException
+	 *             if the file cannot be opened, or its length is not a
+	 *             multiple of four bytes
+	 */
+	public static PrimitiveIterator.OfInt fromBinaryFile(final String file)
+			throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		final FileChannel ch = raf.getChannel();
+		final long size = ch.size();
+
+		if (size % 4 != 0) {
+			raf.close();
+			throw new IOException(file + " is not a whole number of int32 keys");
+		}
+
+		if (size == 0)
+			raf.close();
+
+		return new PrimitiveIterator.OfInt() {
+			private long _offset = 0;
+			private IntBuffer _window = IntBuffer.allocate(0);
+
+			@Override
+			public boolean hasNext() {
+				if (_window.hasRemaining())
+					return true;
+
+				if (_offset == size)
+					return false;
+
+				mapNextWindow();
+
+				return true;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				return _window.get();
+			}
+
+			private void mapNextWindow() {
+				long len = Math.min(size - _offset, 4L * MAP_WINDOW);
+
+				try {
+					_window = ch.map(FileChannel.MapMode.READ_ONLY, _offset, len)
+							.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+					_offset += len;
+
+					// the mapping stays valid after the channel is closed
+					if (_offset == size)
+						ch.close();
+
+				} catch (IOException e) {
+					log.fatal("IOException mapping " + file);
+					System.exit(-1);
+				}
+			}
+		};
+	}
+
+	/**
+	 * A stream of random keys, cut into chunks of CHUNK_SIZE keys. Each chunk
+	 * draws from its own generator, seeded by the sequence seed and the chunk's
+	 * index.
+	 *
+	 * A stateless stream, whose keys depend on nothing but their chunk's
+	 * generator and their position, is filled LOOKAHEAD chunks ahead of the
+	 * reader by parallel tasks. Their buffers are recycled as the reader moves
+	 * on, so the stream holds at most LOOKAHEAD + 1 chunks. The keys are the
+	 * same as those of a sequential stream.
+	 */
+	private abstract static class ChunkedStream implements
+			PrimitiveIterator.OfInt {
+		private final int _length;
+		private final long _seed;
+		private final boolean _parallel;
+
+		private int _i = 0;
+		private SplittableRandom _rnd = null;
+
+		/**
+		 * The chunks being filled, in order, and the next chunk to start
+		 */
+		private final ArrayDeque<CompletableFuture<int[]>> _ahead;
+		private int _nextChunk = 0;
+
+		/**
+		 * The chunk being read, and the position of _i within it
+		 */
+		private int[] _chunk = null;
+		private int _pos = 0;
+
+		protected ChunkedStream(int length, long seed) {
+			this(length, seed, false);
+		}
+
+		/**
+		 * @param stateless
+		 *            true if next depends only on its arguments, so that
+		 *            chunks may be filled in parallel; short streams are
+		 *            generated sequentially regardless
+		 */
+		protected ChunkedStream(int length, long seed, boolean stateless) {
+			_length = length;
+			_seed = seed;
+			_parallel = (stateless && length > CHUNK_SIZE);
+			_ahead = (_parallel ? new ArrayDeque<CompletableFuture<int[]>>()
+					: null);
+		}
+
+		/**
+		 * @param rnd
+		 *            the generator of the current chunk
+		 * @param i
+		 *            the position of the key in the sequence
+		 * @return the next key, drawn from rnd
+		 */
+		protected abstract int next(SplittableRandom rnd, int i);
+
+		@Override
+		public boolean hasNext() {
+			return _i < _length;
+		}
+
+		@Override
+		public int nextInt() {
+			if (_i >= _length)
+				throw new NoSuchElementException();
+
+			if (_parallel) {
+				if (_i % CHUNK_SIZE == 0) {
+					// started on first use, once the subclass is fully built
+					if (_i == 0) {
+						for (int k = 0; k < LOOKAHEAD; ++k) {
+							fillAhead(new int[CHUNK_SIZE]);
+						}
+					}
+
+					int[] done = _chunk;
+
+					_chunk = _ahead.poll().join();
+					_pos = 0;
+
+					// the chunk just finished is refilled further ahead
+					fillAhead(done != null ? done : new int[CHUNK_SIZE]);
+				}
+
+				++_i;
+				return _chunk[_pos++];
+			}
+
+			if (_i % CHUNK_SIZE == 0) {
+				_rnd = new SplittableRandom(deriveSeed(_seed, _i / CHUNK_SIZE));
+			}
+
+			return next(_rnd, _i++);
+		}
+
+		/**
+		 * Starts filling the next chunk into buf, if there is one left
+		 */
+		private void fillAhead(final int[] buf) {
+			final int c = _nextChunk;
+
+			if ((long) c * CHUNK_SIZE >= _length)
+				return;
+
+			++_nextChunk;
+
+			_ahead.add(CompletableFuture.supplyAsync(new Supplier<int[]>() {
+				@Override
+				public int[] get() {
+					SplittableRandom rnd = new SplittableRandom(deriveSeed(
+							_seed, c));
+
+					int start = c * CHUNK_SIZE;
+					int end = chunkEnd(c, _length);
+
+					for (int i = start; i < end; ++i) {
+						buf[i - start] = next(rnd, i);
+					}
+
+					return buf;
+				}
+			}));
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Parallel Generation
+	 */
+
+	/**
+	 * Generates a uniformly random permutation of 1 .. n. This is the
+	 * Rao-Sandelius shuffle: every key is thrown into a random bucket, the
+	 * buckets are laid out one after the other, and each bucket is then
+	 * shuffled on its own. Both the throwing and the shuffling run a chunk or a
+	 * bucket per task.
+	 *
+	 * @param n
+	 *            the number of keys to permute
+	 * @param seed
+	 *            the seed of the permutation
+	 */
+	public static int[] permutation(final int n, final long seed) {
+		final int chunks = numChunks(n);
+
+		// about one chunk's worth of keys per bucket
+		final int buckets = chunks;
+
+		final int[] seq = new int[n];
+		final int[][] counts = new int[chunks][buckets];
+
+		/*
+		 * count how many keys each chunk throws into each bucket
+		 */
+		IntStream.range(0, chunks).parallel().forEach(new IntConsumer() {
+			@Override
+			public void accept(int c) {
+				SplittableRandom rnd = new SplittableRandom(deriveSeed(seed, c));
+
+				int end = chunkEnd(c, n);
+
+				for (int i = c * CHUNK_SIZE; i < end; ++i) {
+					++counts[c][rnd.nextInt(buckets)];
+				}
+			}
+		});
+
+		/*
+		 * turn the counts into where each chunk starts writing in each bucket,
+		 * with buckets in order and chunks in order within each bucket
+		 */
+		final int[] bucketStart = new int[buckets + 1];
+		int pos = 0;
+
+		for (int b = 0; b < buckets; ++b) {
+			bucketStart[b] = pos;
+
+			for (int c = 0; c < chunks; ++c) {
+				int count = counts[c][b];
+				counts[c][b] = pos;
+				pos += count;
+			}
+		}
+
+		bucketStart[buckets] = pos;
+
+		/*
+		 * throw the keys again, this time into place; replaying each chunk's
+		 * random numbers picks the same buckets as before
+		 */
+		IntStream.range(0, chunks).parallel().forEach(new IntConsumer() {
+			@Override
+			public void accept(int c) {
+				SplittableRandom rnd = new SplittableRandom(deriveSeed(seed, c));
+				int[] next = counts[c];
+
+				int end = chunkEnd(c, n);
+
+				for (int i = c * CHUNK_SIZE; i < end; ++i) {
+					seq[next[rnd.nextInt(buckets)]++] = i + 1;
+				}
+			}
+		});
+
+		/*
+		 * shuffle each bucket
+		 */
+		IntStream.range(0, buckets).parallel().forEach(new IntConsumer() {
+			@Override
+			public void accept(int b) {
+				SplittableRandom rnd = new SplittableRandom(deriveSeed(seed,
+						chunks + b));
+
+				int lo = bucketStart[b];
+				int hi = bucketStart[b + 1];
+
+				for (int i = lo; i < hi - 1; ++i) {
+					// select an element from anywhere in the rest of the bucket
+					int j = i + rnd.nextInt(hi - i);
+
+					int t = seq[i];
+					seq[i] = seq[j];
+					seq[j] = t;
+				}
+			}
+		});
+
+		return seq;
+	}
+
+	private static int numChunks(int n) {
+		return Math.max(1, (int) ((n + (long) CHUNK_SIZE - 1) / CHUNK_SIZE));
+	}
+
+	private static int chunkEnd(int c, int n) {
+		return (int) Math.min(n, (long) (c + 1) * CHUNK_SIZE);
+	}
+}
@@ -0,0 +1,68 @@
+package console;
+
+/**
+ * The settings that shape the skewed and drifting sequence types. Each
+ * Experiment is handed the same instance, which is never changed once the
+ * configuration has been loaded.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class SequenceParameters {
+
+	/**
+	 * The exponent s of Zipf sequences, where key popularity falls off as 1 /
+	 * rank^s
+	 */
+	public double zipfExponent = 1.0;
+
+	/**
+	 * The fraction of Hotspot accesses that go to the hot keys
+	 */
+	public double hotspotAccesses = 0.9;
+
+	/**
+	 * The fraction of all keys that are hot in Hotspot sequences
+	 */
+	public double hotspotKeys = 0.1;
+
+	/**
+	 * The fraction of all keys in the window of WorkingSet sequences
+	 */
+	public double workingSetKeys = 0.01;
+
+	/**
+	 * How many keys the window of WorkingSet sequences moves per access
+	 */
+	public double workingSetDrift = 0.1;
+
+	/**
+	 * The fraction of all keys in each hot region of Phase sequences
+	 */
+	public double phaseKeys = 0.01;
+
+	/**
+	 * The number of accesses in each phase of Phase sequences
+	 */
+	public int phaseLength = 10000;
+
+	/**
+	 * The number of hot regions that Phase sequences switch between
+	 */
+	public int phaseRegions = 4;
+
+	/**
+	 * The distribution of the steps of RandomWalk sequences
+	 */
+	public StepDistribution walkDistribution = StepDistribution.GEOMETRIC;
+
+	/**
+	 * The size of the steps of RandomWalk sequences; see StepDistribution
+	 */
+	public double walkStep = 4.0;
+
+	/**
+	 * The largest displacement of each access of SequentialJitter sequences
+	 */
+	public int jitter = 8;
+}
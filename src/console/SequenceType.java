@@ -2,9 +2,11 @@ package console;
 
 public enum SequenceType {
 
-	FILE("File"), INCREASING("Increasing"), DECREASING("Decreasing"), PERMUTATION(
-			"Permutation"), RANDOM("Random"), SQUAREROOT("Sqrt"), UNKNOWN(
-			"Unknown");
+	FILE("File"), BINARYFILE("BinaryFile"), INCREASING("Increasing"), DECREASING(
+			"Decreasing"), PERMUTATION("Permutation"), RANDOM("Random"), SQUAREROOT(
+			"Sqrt"), ZIPF("Zipf"), HOTSPOT("Hotspot"), WORKINGSET("WorkingSet"), PHASE(
+			"Phase"), BITREVERSAL("BitReversal"), INTERLEAVE("Interleave"), RANDOMWALK(
+			"RandomWalk"), SEQUENTIALJITTER("SequentialJitter"), UNKNOWN("Unknown");
 
 	private String _str;
 
@@ -1,21 +1,16 @@
 package console;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 
-import tango.BasicBST;
 import tango.BinarySearchTree;
-import tango.RedBlackTango;
-import tango.RedBlackTree;
-import tango.SplayTree;
-import tango.TreeStats;
-import tango.UnbalancedTango;
 
 public class StatRunner {
 	private static final Logger log = Logger.getLogger(StatRunner.class);
@@ -34,47 +29,190 @@ public class StatRunner {
 			+ ".sequenceRepetitions";
 	private static final String cSeqFile = StatRunner.class.getSimpleName()
 			+ ".sequenceFile";
+	private static final String cShards = StatRunner.class.getSimpleName()
+			+ ".numShards";
+	private static final String cThreads = StatRunner.class.getSimpleName()
+			+ ".numThreads";
+	private static final String cSeed = StatRunner.class.getSimpleName()
+			+ ".seed";
+	private static final String cZipfExponent = StatRunner.class
+			.getSimpleName() + ".zipfExponent";
+	private static final String cHotspotAccesses = StatRunner.class
+			.getSimpleName() + ".hotspotAccesses";
+	private static final String cHotspotKeys = StatRunner.class
+			.getSimpleName() + ".hotspotKeys";
+	private static final String cWorkingSetKeys = StatRunner.class
+			.getSimpleName() + ".workingSetKeys";
+	private static final String cWorkingSetDrift = StatRunner.class
+			.getSimpleName() + ".workingSetDrift";
+	private static final String cPhaseKeys = StatRunner.class
+			.getSimpleName() + ".phaseKeys";
+	private static final String cPhaseLength = StatRunner.class
+			.getSimpleName() + ".phaseLength";
+	private static final String cPhaseRegions = StatRunner.class
+			.getSimpleName() + ".phaseRegions";
+	private static final String cWalkDistribution = StatRunner.class
+			.getSimpleName() + ".walkDistribution";
+	private static final String cWalkStep = StatRunner.class
+			.getSimpleName() + ".walkStep";
+	private static final String cJitter = StatRunner.class.getSimpleName()
+			+ ".jitter";
+	private static final String cLatencySampling = StatRunner.class
+			.getSimpleName() + ".latencySampling";
+	private static final String cWarmupIterations = StatRunner.class
+			.getSimpleName() + ".warmupIterations";
+	private static final String cMaxWarmupIterations = StatRunner.class
+			.getSimpleName() + ".maxWarmupIterations";
+	private static final String cSteadyWindow = StatRunner.class
+			.getSimpleName() + ".steadyWindow";
+	private static final String cSteadyCv = StatRunner.class
+			.getSimpleName() + ".steadyCv";
+	private static final String cMemoryReport = StatRunner.class
+			.getSimpleName() + ".memoryReport";
+	private static final String cResultsFile = StatRunner.class
+			.getSimpleName() + ".resultsFile";
+	private static final String cResultsFormat = StatRunner.class
+			.getSimpleName() + ".resultsFormat";
+
+	/**
+	 * A generous estimate of the heap one experiment needs per key of each of
+	 * its trees, nil leaves and bounds included, used to cap the default number of
+	 * threads
+	 */
+	private static final long BYTES_PER_KEY_ESTIMATE = 256;
 
 	/*
 	 * Config
 	 */
-	private TreeType _treeType;
+	private TreeType[] _treeTypes;
 	private int _sets;
 	private int _minLevels;
 	private int _maxLevels;
 	private int _reps;
+	private SequenceType _seqType;
 	private String _seqFile;
-
-	/*
-	 * Current run
+	private int _shards = 1;
+	// 0 picks defaultThreads
+	private int _threads = 0;
+	private long _seed = new SplittableRandom().nextLong();
+	private SequenceParameters _params = new SequenceParameters();
+	private int _sampling = 64;
+	private WarmupPolicy _warmup = new WarmupPolicy();
+	private boolean _memoryReport = false;
+	private String _resultsFile = null;
+	private ResultsFormat _resultsFormat = ResultsFormat.CSV;
+
+	/**
+	 * Runs every cell of the experiment matrix on a pool of _threads workers.
+	 * Each experiment's seed is derived from the run's seed and its (levels,
+	 * set) cell alone, and the results are logged in submission order however
+	 * the runs interleave; a run with the same seed repeats exactly. If a
+	 * resultsFile is configured, the results are also written to it.
+	 *
+	 * Each cell is one Experiment, which draws its sequence a chunk at a time
+	 * and runs every chunk through a tree of each type, so every tree type
+	 * runs on the same sequence, generated or read only once. The sets of one
+	 * size are submitted one after another, so that each worker can reset the
+	 * trees of its last experiment rather than build new ones.
 	 */
-	private int _curLevels;
-	private int _curN;
-	private int _curSet;
-	private SequenceType _curSeqType;
-	private ArrayList<Integer> _sequence;
-	private BinarySearchTree _tree;
-	private Random _rnd = new Random();
-
 	public void start() {
-		_rnd = new Random();
-
 		loadConfiguration();
 
-		for (_curLevels = _minLevels; _curLevels <= _maxLevels; ++_curLevels) {
-			for (_curSet = 0; _curSet < _sets; ++_curSet) {
+		log.info("Seed: " + _seed);
 
-				_curN = ((int) Math.pow(2, _curLevels)) - 1;
+		ResultsSink sink = openResultsSink();
 
-				genSequence();
+		ArrayList<Future<ExperimentResult[]>> results = new ArrayList<Future<ExperimentResult[]>>();
 
-				prepTree();
+		ExecutorService pool = Executors.newFixedThreadPool(_threads);
 
-				execSequence();
+		for (int levels = _minLevels; levels <= _maxLevels; ++levels) {
+			for (int set = 0; set < _sets; ++set) {
+				long seed = SequenceGenerator.deriveSeed(
+						SequenceGenerator.deriveSeed(_seed, levels), set);
 
-				printResults();
+				results.add(pool.submit(new Experiment(_treeTypes, _seqType,
+						levels, set, _reps, _seqFile, _shards, seed, _params,
+						_sampling, _warmup, _memoryReport)));
 			}
 		}
+
+		pool.shutdown();
+
+		try {
+			for (Future<ExperimentResult[]> f : results) {
+				for (ExperimentResult r : f.get()) {
+					log.info(r);
+
+					if (sink != null)
+						sink.submit(r);
+				}
+			}
+		} catch (InterruptedException e) {
+			log.fatal("Interrupted waiting for results");
+			System.exit(-1);
+		} catch (ExecutionException e) {
+			log.fatal("Unexpected Error: " + e.getCause().getMessage());
+			e.getCause().printStackTrace();
+			System.exit(-1);
+		}
+
+		if (sink != null) {
+			try {
+				sink.close();
+			} catch (IOException e) {
+				log.fatal("Could not write " + _resultsFile + ": "
+						+ e.getMessage());
+				System.exit(-1);
+			}
+		}
+	}
+
+	/**
+	 * @param list
+	 *            one or more tree types, separated by commas
+	 * @return the tree types, in the order given
+	 */
+	private static TreeType[] parseTreeTypes(String list) {
+		String[] items = list.split(",");
+		TreeType[] types = new TreeType[items.length];
+
+		for (int i = 0; i < items.length; ++i) {
+			types[i] = TreeType.fromString(items[i]);
+		}
+
+		return types;
+	}
+
+	/**
+	 * @return a sink for the configured resultsFile, or null if there is none
+	 */
+	private ResultsSink openResultsSink() {
+		if (_resultsFile == null)
+			return null;
+
+		try {
+			return new ResultsSink(_resultsFile, _resultsFormat);
+		} catch (IOException e) {
+			log.fatal("Could not create " + _resultsFile + ": "
+					+ e.getMessage());
+			System.exit(-1);
+			return null;
+		}
+	}
+
+	/**
+	 * @return one thread per core, but no more than the heap can hold
+	 *         experiments of the given size at once, each with a tree of
+	 *         every type
+	 */
+	private static int defaultThreads(int levels, int trees) {
+		Runtime rt = Runtime.getRuntime();
+
+		long perExperiment = (BYTES_PER_KEY_ESTIMATE << levels) * trees;
+		long fit = rt.maxMemory() / perExperiment;
+
+		return (int) Math.max(1, Math.min(rt.availableProcessors(), fit));
 	}
 
 	private void loadConfiguration() {
@@ -85,17 +223,120 @@ public class StatRunner {
 		 */
 		try {
 
-			_treeType = TreeType.fromString(c.getConfig(cTreeType));
+			_treeTypes = parseTreeTypes(c.getConfig(cTreeType));
 			_sets = Integer.parseInt(c.getConfig(cSets));
 			_minLevels = Integer.parseInt(c.getConfig(cMinLevels));
 			_maxLevels = Integer.parseInt(c.getConfig(cMaxLevels));
 			_reps = Integer.parseInt(c.getConfig(cReps));
-			_curSeqType = SequenceType.fromString(c.getConfig(cSeqType));
+			_seqType = SequenceType.fromString(c.getConfig(cSeqType));
 
-			if (_curSeqType == SequenceType.FILE) {
+			if (_seqType == SequenceType.FILE
+					|| _seqType == SequenceType.BINARYFILE) {
 				_seqFile = c.getConfig(cSeqFile);
 			}
 
+			if (c.hasConfig(cShards)) {
+				_shards = Integer.parseInt(c.getConfig(cShards));
+			}
+
+			if (c.hasConfig(cThreads)) {
+				_threads = Integer.parseInt(c.getConfig(cThreads));
+			}
+
+			if (c.hasConfig(cSeed)) {
+				_seed = Long.parseLong(c.getConfig(cSeed).trim());
+			}
+
+			if (c.hasConfig(cZipfExponent)) {
+				_params.zipfExponent = Double.parseDouble(c
+						.getConfig(cZipfExponent));
+			}
+
+			if (c.hasConfig(cHotspotAccesses)) {
+				_params.hotspotAccesses = Double.parseDouble(c
+						.getConfig(cHotspotAccesses));
+			}
+
+			if (c.hasConfig(cHotspotKeys)) {
+				_params.hotspotKeys = Double.parseDouble(c
+						.getConfig(cHotspotKeys));
+			}
+
+			if (c.hasConfig(cWorkingSetKeys)) {
+				_params.workingSetKeys = Double.parseDouble(c
+						.getConfig(cWorkingSetKeys));
+			}
+
+			if (c.hasConfig(cWorkingSetDrift)) {
+				_params.workingSetDrift = Double.parseDouble(c
+						.getConfig(cWorkingSetDrift));
+			}
+
+			if (c.hasConfig(cPhaseKeys)) {
+				_params.phaseKeys = Double.parseDouble(c.getConfig(cPhaseKeys));
+			}
+
+			if (c.hasConfig(cPhaseLength)) {
+				_params.phaseLength = Integer.parseInt(c
+						.getConfig(cPhaseLength));
+			}
+
+			if (c.hasConfig(cPhaseRegions)) {
+				_params.phaseRegions = Integer.parseInt(c
+						.getConfig(cPhaseRegions));
+			}
+
+			if (c.hasConfig(cWalkDistribution)) {
+				_params.walkDistribution = StepDistribution.fromString(c
+						.getConfig(cWalkDistribution));
+			}
+
+			if (c.hasConfig(cWalkStep)) {
+				_params.walkStep = Double.parseDouble(c.getConfig(cWalkStep));
+			}
+
+			if (c.hasConfig(cJitter)) {
+				_params.jitter = Integer.parseInt(c.getConfig(cJitter));
+			}
+
+			if (c.hasConfig(cLatencySampling)) {
+				_sampling = Integer.parseInt(c.getConfig(cLatencySampling)
+						.trim());
+			}
+
+			if (c.hasConfig(cWarmupIterations)) {
+				_warmup.warmupIterations = Integer.parseInt(c.getConfig(
+						cWarmupIterations).trim());
+			}
+
+			if (c.hasConfig(cMaxWarmupIterations)) {
+				_warmup.maxWarmupIterations = Integer.parseInt(c.getConfig(
+						cMaxWarmupIterations).trim());
+			}
+
+			if (c.hasConfig(cSteadyWindow)) {
+				_warmup.steadyWindow = Integer.parseInt(c.getConfig(
+						cSteadyWindow).trim());
+			}
+
+			if (c.hasConfig(cSteadyCv)) {
+				_warmup.steadyCv = Double.parseDouble(c.getConfig(cSteadyCv));
+			}
+
+			if (c.hasConfig(cMemoryReport)) {
+				_memoryReport = Boolean.parseBoolean(c.getConfig(cMemoryReport)
+						.trim());
+			}
+
+			if (c.hasConfig(cResultsFile)) {
+				_resultsFile = c.getConfig(cResultsFile).trim();
+			}
+
+			if (c.hasConfig(cResultsFormat)) {
+				_resultsFormat = ResultsFormat.fromString(c
+						.getConfig(cResultsFormat));
+			}
+
 		} catch (NumberFormatException e) {
 			log.fatal(e.getMessage());
 			System.exit(-1);
@@ -107,12 +348,21 @@ public class StatRunner {
 		/*
 		 * Check other conditions
 		 */
-		if (_treeType == TreeType.UNKNOWN) {
-			log.fatal("Unknown Tree Type.");
-			System.exit(-1);
+		for (int i = 0; i < _treeTypes.length; ++i) {
+			if (_treeTypes[i] == TreeType.UNKNOWN) {
+				log.fatal("Unknown Tree Type.");
+				System.exit(-1);
+			}
+
+			for (int j = 0; j < i; ++j) {
+				if (_treeTypes[i] == _treeTypes[j]) {
+					log.fatal(_treeTypes[i] + " is listed more than once");
+					System.exit(-1);
+				}
+			}
 		}
 
-		if (_curSeqType == SequenceType.UNKNOWN) {
+		if (_seqType == SequenceType.UNKNOWN) {
 			log.fatal("Unknown Sequence Type.");
 			System.exit(-1);
 		}
@@ -127,194 +377,130 @@ public class StatRunner {
 			System.exit(-1);
 		}
 
-	}
-
-	private void genSequence() {
-		_sequence = new ArrayList<Integer>();
-
-		for (int i = 0; i < _reps; ++i) {
-			switch (_curSeqType) {
-			case FILE:
-				loadSequence();
-				break;
-			case INCREASING:
-				genIncreasingSequence(_curN);
-				break;
-			case DECREASING:
-				genDecreasingSequence(_curN);
-				break;
-			case PERMUTATION:
-				genPermutationSequence(_curN);
-				break;
-			case RANDOM:
-				genRandomSequence(_curN);
-				break;
-			case SQUAREROOT:
-				genSquareRootSequence(_curN);
-				break;
-			default:
-				log.fatal("Unhandled sequence type");
-				System.exit(-1);
-				break;
-			}
+		if (_maxLevels > BinarySearchTree.MAX_LEVELS) {
+			log.fatal("maxLevels must be <= " + BinarySearchTree.MAX_LEVELS);
+			System.exit(-1);
 		}
-	}
 
-	private void genIncreasingSequence(int n) {
-		log.info("Generating increasing sequence from 1 to " + n);
-
-		for (int i = 1; i <= n; ++i) {
-			_sequence.add(Integer.valueOf(i));
+		if (_shards < 1) {
+			log.fatal("numShards must be >= 1");
+			System.exit(-1);
 		}
-	}
-
-	private void genDecreasingSequence(int n) {
-		log.info("Generating decreasing sequence from " + n + " to 1");
 
-		for (int i = n; i > 0; --i) {
-			_sequence.add(Integer.valueOf(i));
+		if (_threads == 0) {
+			// the retained heap of a tree is only measurable while nothing
+			// else runs
+			_threads = (_memoryReport ? 1 : defaultThreads(_maxLevels,
+					_treeTypes.length));
+		} else if (_threads < 1) {
+			log.fatal("numThreads must be >= 1");
+			System.exit(-1);
 		}
-	}
-
-	private void genPermutationSequence(int n) {
-		log.info("Generating a permutation of the values 1 to " + n);
 
-		int[] arr = new int[n];
-
-		// fill array
-		for (int i = 0; i < n; ++i) {
-			arr[i] = i + 1; // offset value
+		if (_threads > 1) {
+			log.info("Running up to " + _threads + " experiments at once; "
+					+ "set numThreads = 1 for timings free of interference");
 		}
 
-		// permute!
-		for (int i = 0; i < n - 1; ++i) {
-			// select an element from anywhere in the remainder of the array
-			int j = i + _rnd.nextInt(n - i);
-			swap(arr, i, j);
+		if (!(_params.zipfExponent > 0)) {
+			log.fatal("zipfExponent must be > 0");
+			System.exit(-1);
 		}
 
-		// insert into sequence
-		for (int i = 0; i < n; ++i) {
-			_sequence.add(Integer.valueOf(arr[i]));
+		if (!(_params.hotspotAccesses >= 0 && _params.hotspotAccesses <= 1)) {
+			log.fatal("hotspotAccesses must be within [0, 1]");
+			System.exit(-1);
 		}
-	}
-
-	private void genRandomSequence(int n) {
-		log.info("Generating a random sequence of value from [1," + n + "]"
-				+ " of length " + n);
 
-		for (int i = 1; i <= n; ++i) {
-			_sequence.add(_rnd.nextInt(n) + 1);
+		if (!(_params.hotspotKeys > 0 && _params.hotspotKeys <= 1)) {
+			log.fatal("hotspotKeys must be within (0, 1]");
+			System.exit(-1);
 		}
-	}
 
-	private void genSquareRootSequence(int n) {
-		log.info("Generating Sqrt sequence of the values 1 to " + n);
-
-		int sqr = (int) (Math.floor(Math.sqrt(n)));
-
-		for (int i = 1; i <= sqr; ++i) {
-			int val = i;
-
-			while (val <= n) {
-				_sequence.add(Integer.valueOf(val));
-
-				val += sqr;
-			}
+		if (!(_params.workingSetKeys > 0 && _params.workingSetKeys <= 1)) {
+			log.fatal("workingSetKeys must be within (0, 1]");
+			System.exit(-1);
 		}
-	}
-
-	private void loadSequence() {
-
-		BufferedReader br = null;
-		try {
-			br = new BufferedReader(new FileReader(_seqFile));
 
-		} catch (FileNotFoundException e) {
-			log.fatal(_seqFile + " could not be found for opening");
+		if (!(_params.workingSetDrift >= 0)) {
+			log.fatal("workingSetDrift must be >= 0");
 			System.exit(-1);
 		}
 
-		String line = "";
-
-		try {
-			while ((line = br.readLine()) != null) {
-				line = line.trim();
-				Integer i = Integer.valueOf(line);
-				_sequence.add(i);
-			}
-
-			br.close();
+		if (!(_params.phaseKeys > 0 && _params.phaseKeys <= 1)) {
+			log.fatal("phaseKeys must be within (0, 1]");
+			System.exit(-1);
+		}
 
-		} catch (NumberFormatException e) {
-			log.fatal("Error parsing '" + line + "' from file");
+		if (_params.phaseLength < 1) {
+			log.fatal("phaseLength must be >= 1");
 			System.exit(-1);
-		} catch (IOException e) {
-			log.fatal("IOException processing file");
+		}
+
+		if (_params.phaseRegions < 1) {
+			log.fatal("phaseRegions must be >= 1");
 			System.exit(-1);
 		}
 
-		log.info("Loaded " + _seqFile + " with " + _sequence.size() + " items");
-	}
+		if (_params.walkDistribution == StepDistribution.UNKNOWN) {
+			log.fatal("Unknown Step Distribution.");
+			System.exit(-1);
+		}
 
-	private void prepTree() {
-
-		if (_treeType == TreeType.RBTANGO) {
-			_tree = new RedBlackTango();
-		} else if (_treeType == TreeType.UTANGO) {
-			_tree = new UnbalancedTango();
-		} else if (_treeType == TreeType.SPLAY) {
-			_tree = new SplayTree();
-		} else if (_treeType == TreeType.REDBLACK) {
-			_tree = new RedBlackTree();
-		} else if (_treeType == TreeType.BASIC) {
-			_tree = new BasicBST();
-		} else {
-			log.fatal("Unhandled tree type");
+		if (!(_params.walkStep >= 1)) {
+			log.fatal("walkStep must be >= 1");
 			System.exit(-1);
 		}
 
-		_tree.initializePerfectTree(_curLevels);
-	}
+		if (_params.jitter < 0) {
+			log.fatal("jitter must be >= 0");
+			System.exit(-1);
+		}
 
-	private void execSequence() {
-		int n = _sequence.size();
+		if (_params.jitter > ((1L << _maxLevels) - 1) / 2) {
+			log.fatal("jitter must be <= half the keys of maxLevels");
+			System.exit(-1);
+		}
 
-		log.info("Executing search sequence of length " + n + "...");
-		log.debug("Sequence is: " + _sequence);
+		if (_sampling < 0) {
+			log.fatal("latencySampling must be >= 0");
+			System.exit(-1);
+		}
 
-		try {
-			for (int i = 0; i < n; ++i) {
-				_tree.search(_sequence.get(i));
-			}
-		} catch (AssertionError e) {
-			log.fatal("Assertion Failure: " + e.getMessage());
+		if (_warmup.warmupIterations < 0) {
+			log.fatal("warmupIterations must be >= 0");
+			System.exit(-1);
+		}
 
-			// but, we move on without exiting
+		if (_warmup.maxWarmupIterations < _warmup.warmupIterations) {
+			log.fatal("maxWarmupIterations must be at least equal to warmupIterations");
+			System.exit(-1);
+		}
 
-		} catch (Exception e) {
-			log.fatal("Unexpected Error: " + e.getMessage());
-			e.printStackTrace();
+		if (_warmup.steadyWindow < 2) {
+			log.fatal("steadyWindow must be >= 2");
 			System.exit(-1);
 		}
-	}
 
-	private void printResults() {
-		String fmt = "Results: treetype:%s;seqtype:%s;levels:%d;seqsize:%d;set:%d;rot:%d;trav:%d:otrav:%d";
+		if (!(_warmup.steadyCv >= 0)) {
+			log.fatal("steadyCv must be >= 0");
+			System.exit(-1);
+		}
 
-		TreeStats stats = _tree.getStats();
+		if (_memoryReport && !MemoryMeter.isSupported()) {
+			log.fatal("memoryReport needs a JVM that counts the bytes allocated by each thread");
+			System.exit(-1);
+		}
 
-		String lg = String.format(fmt, _treeType, _curSeqType, _curLevels,
-				_sequence.size(), _curSet, stats.getRotations(),
-				stats.getTraversals(), stats.getOtherTraversals());
+		if (_memoryReport && _threads > 1) {
+			log.fatal("memoryReport needs numThreads = 1");
+			System.exit(-1);
+		}
 
-		log.info(lg);
-	}
+		if (_resultsFormat == ResultsFormat.UNKNOWN) {
+			log.fatal("Unknown Results Format.");
+			System.exit(-1);
+		}
 
-	private void swap(int[] arr, int i, int j) {
-		int t = arr[i];
-		arr[i] = arr[j];
-		arr[j] = t;
 	}
-
 }
@@ -0,0 +1,79 @@
+package console;
+
+import java.util.SplittableRandom;
+
+/**
+ * How far, and which way, a random walk moves on each access. The scale is
+ * the largest step for Uniform, the mean step for Geometric, and the standard
+ * deviation for Gaussian.
+ *
+ * @author Gregory Bint
+ *
+ */
+public enum StepDistribution {
+
+	UNIFORM("Uniform"), GEOMETRIC("Geometric"), GAUSSIAN("Gaussian"), UNKNOWN(
+			"Unknown");
+
+	private String _str;
+
+	private StepDistribution(String str) {
+		_str = str;
+	}
+
+	public static StepDistribution fromString(String str) {
+		str = str.trim();
+
+		for (StepDistribution t : StepDistribution.values()) {
+			if (str.equalsIgnoreCase(t._str))
+				return t;
+		}
+
+		return UNKNOWN;
+	}
+
+	/**
+	 * @param rnd
+	 *            the source of randomness
+	 * @param scale
+	 *            the size of the steps, at least 1
+	 * @return a signed step
+	 */
+	public int sample(SplittableRandom rnd, double scale) {
+		int step;
+
+		switch (this) {
+		case UNIFORM:
+			step = 1 + rnd.nextInt((int) Math.max(1, Math.round(scale)));
+			break;
+		case GEOMETRIC:
+			// the number of trials up to the first success, at p = 1 / scale
+			if (scale <= 1) {
+				step = 1;
+			} else {
+				double u = 1.0 - rnd.nextDouble();
+				step = 1 + (int) Math.min(Integer.MAX_VALUE / 2,
+						Math.floor(Math.log(u) / Math.log(1.0 - 1.0 / scale)));
+			}
+			break;
+		case GAUSSIAN:
+			// Box-Muller, keeping only the sign-free magnitude
+			double u1 = 1.0 - rnd.nextDouble();
+			double u2 = rnd.nextDouble();
+			double g = Math.sqrt(-2.0 * Math.log(u1))
+					* Math.cos(2.0 * Math.PI * u2);
+			step = (int) Math.min(Integer.MAX_VALUE / 2,
+					Math.round(Math.abs(g) * scale));
+			break;
+		default:
+			throw new IllegalStateException("Unhandled step distribution");
+		}
+
+		return (rnd.nextBoolean() ? step : -step);
+	}
+
+	@Override
+	public String toString() {
+		return _str;
+	}
+}
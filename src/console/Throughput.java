@@ -0,0 +1,90 @@
+package console;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tango.BinarySearchTree;
+
+/**
+ * Shared measuring loop of the multi-threaded benchmark mains
+ *
+ * @author Gregory Bint
+ *
+ */
+class Throughput {
+
+	/**
+	 * Searches that each thread makes between looks at the clock
+	 */
+	private static final int BATCH = 256;
+
+	private Throughput() {
+		// static only
+	}
+
+	/**
+	 * Starts the given number of threads together, each searching uniformly
+	 * random keys in the tree until the time is up.
+	 *
+	 * @param t
+	 *            a tree that is safe to share between threads
+	 * @param keys
+	 *            searches are for keys 1 .. keys
+	 * @param threads
+	 *            the number of searching threads
+	 * @param millis
+	 *            how long to run for
+	 * @return the total searches per second over all threads
+	 */
+	static double measureSearches(final BinarySearchTree t, final int keys,
+			int threads, long millis) throws InterruptedException {
+		final AtomicLong total = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] deadline = new long[1];
+
+		Thread[] workers = new Thread[threads];
+
+		for (int i = 0; i < threads; ++i) {
+			final SplittableRandom rnd = new SplittableRandom(i);
+
+			workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					long count = 0;
+
+					while (System.nanoTime() < deadline[0]) {
+						for (int j = 0; j < BATCH; ++j) {
+							t.search(rnd.nextInt(keys) + 1);
+						}
+
+						count += BATCH;
+					}
+
+					total.addAndGet(count);
+				}
+			});
+
+			workers[i].start();
+		}
+
+		// the latch publishes the deadline to the workers
+		long begin = System.nanoTime();
+		deadline[0] = begin + millis * 1000000L;
+		start.countDown();
+
+		for (Thread w : workers) {
+			w.join();
+		}
+
+		long elapsed = System.nanoTime() - begin;
+
+		return total.get() * 1e9 / elapsed;
+	}
+}
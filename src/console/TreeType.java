@@ -1,9 +1,17 @@
 package console;
 
+import tango.BasicBST;
+import tango.BinarySearchTree;
+import tango.RedBlackTango;
+import tango.RedBlackTree;
+import tango.SplayTree;
+import tango.UnbalancedTango;
+import tango.VersionedRedBlackTree;
+
 public enum TreeType {
 
 	BASIC("Basic"), REDBLACK("RedBlack"), SPLAY("Splay"), RBTANGO("rbTango"), UTANGO(
-			"uTango"), UNKNOWN("Unknown");
+			"uTango"), PERSISTENTRB("PersistentRB"), UNKNOWN("Unknown");
 
 	private String _str;
 
@@ -22,6 +30,28 @@ public enum TreeType {
 		return UNKNOWN;
 	}
 
+	/**
+	 * @return a new, empty tree of this type, or null for UNKNOWN
+	 */
+	public BinarySearchTree newTree() {
+		switch (this) {
+		case BASIC:
+			return new BasicBST();
+		case REDBLACK:
+			return new RedBlackTree();
+		case SPLAY:
+			return new SplayTree();
+		case RBTANGO:
+			return new RedBlackTango();
+		case UTANGO:
+			return new UnbalancedTango();
+		case PERSISTENTRB:
+			return new VersionedRedBlackTree();
+		default:
+			return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return _str;
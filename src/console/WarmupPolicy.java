@@ -0,0 +1,90 @@
+package console;
+
+/**
+ * How many throwaway runs an Experiment makes on each tree type before its
+ * measured one, so that the measured run executes compiled code. After
+ * warmupIterations runs, warming up continues until the run times have
+ * settled, judged by the coefficient of variation (standard deviation over
+ * mean) of the last steadyWindow of them, or until maxWarmupIterations runs
+ * have been made.
+ *
+ * As with SequenceParameters, each Experiment is handed the same instance,
+ * which is never changed once the configuration has been loaded.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class WarmupPolicy {
+
+	/**
+	 * The fewest throwaway runs; 0 disables warming up altogether
+	 */
+	public int warmupIterations = 0;
+
+	/**
+	 * The most throwaway runs, whether or not the times have settled
+	 */
+	public int maxWarmupIterations = 50;
+
+	/**
+	 * How many of the latest run times are compared
+	 */
+	public int steadyWindow = 5;
+
+	/**
+	 * The largest coefficient of variation of a window of run times that
+	 * counts as settled
+	 */
+	public double steadyCv = 0.05;
+
+	/**
+	 * @param times
+	 *            the times of the runs so far
+	 * @param count
+	 *            how many entries of times are filled
+	 * @return true if another throwaway run should be made
+	 */
+	public boolean needsMore(long[] times, int count) {
+		if (count < warmupIterations)
+			return true;
+
+		if (warmupIterations == 0 || count >= maxWarmupIterations)
+			return false;
+
+		if (count < steadyWindow)
+			return true;
+
+		return coefficientOfVariation(times, count - steadyWindow, count)
+				> steadyCv;
+	}
+
+	/**
+	 * @return the coefficient of variation of times[from .. to - 1], or 0 if
+	 *         there are fewer than two or their mean is 0
+	 */
+	public static double coefficientOfVariation(long[] times, int from, int to) {
+		int k = to - from;
+
+		if (k < 2)
+			return 0;
+
+		double mean = 0;
+
+		for (int i = from; i < to; ++i)
+			mean += times[i];
+
+		mean /= k;
+
+		if (mean == 0)
+			return 0;
+
+		double var = 0;
+
+		for (int i = from; i < to; ++i) {
+			double d = times[i] - mean;
+			var += d * d;
+		}
+
+		return Math.sqrt(var / (k - 1)) / mean;
+	}
+}
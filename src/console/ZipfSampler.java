@@ -0,0 +1,112 @@
+package console;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks 1 .. n with P(k) proportional to 1 / k^s, in O(1) expected
+ * time and memory per sample, using the rejection-inversion method of
+ * Hormann and Derflinger ("Rejection-inversion to generate variates from
+ * monotone discrete distributions", 1996). Any exponent s > 0 is supported,
+ * including s = 1.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ZipfSampler {
+	private final int _n;
+	private final double _exponent;
+
+	private final double _hIntegralX1;
+	private final double _hIntegralN;
+	private final double _s;
+
+	/**
+	 * @param n
+	 *            the number of ranks
+	 * @param exponent
+	 *            the skew; larger is more skewed
+	 */
+	public ZipfSampler(int n, double exponent) {
+		assert (n >= 1);
+		assert (exponent > 0);
+
+		_n = n;
+		_exponent = exponent;
+
+		_hIntegralX1 = hIntegral(1.5) - 1.0;
+		_hIntegralN = hIntegral(n + 0.5);
+		_s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+	}
+
+	/**
+	 * @return a rank in 1 .. n, where 1 is the most popular
+	 */
+	public int sample(SplittableRandom rnd) {
+		while (true) {
+			double u = _hIntegralN + rnd.nextDouble()
+					* (_hIntegralX1 - _hIntegralN);
+			double x = hIntegralInverse(u);
+
+			int k = (int) (x + 0.5);
+
+			if (k < 1) {
+				k = 1;
+			} else if (k > _n) {
+				k = _n;
+			}
+
+			// most samples are accepted by the first, cheap test
+			if (k - x <= _s || u >= hIntegral(k + 0.5) - h(k)) {
+				return k;
+			}
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * The hat function h(x) = 1 / x^s, its integral H and H's inverse
+	 */
+
+	private double h(double x) {
+		return Math.exp(-_exponent * Math.log(x));
+	}
+
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+
+		return helper2((1.0 - _exponent) * logX) * logX;
+	}
+
+	private double hIntegralInverse(double x) {
+		double t = x * (1.0 - _exponent);
+
+		if (t < -1.0) {
+			// only reachable through rounding
+			t = -1.0;
+		}
+
+		return Math.exp(helper1(t) * x);
+	}
+
+	/**
+	 * @return log(1 + x) / x, accurate also near x = 0
+	 */
+	private static double helper1(double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.log1p(x) / x;
+		}
+
+		return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+	}
+
+	/**
+	 * @return (exp(x) - 1) / x, accurate also near x = 0
+	 */
+	private static double helper2(double x) {
+		if (Math.abs(x) > 1e-8) {
+			return Math.expm1(x) / x;
+		}
+
+		return 1.0 + x * 0.5 * (1.0 + x * 1.0 / 3.0 * (1.0 + 0.25 * x));
+	}
+}
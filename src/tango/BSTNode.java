@@ -9,9 +9,10 @@ public class BSTNode {
 	public BSTNode right = null;
 
 	/**
-	 * The size of the subtree rooted at this node, including the node itself
+	 * The size of the subtree rooted at this node, including the node itself.
+	 * Trees with nil leaves count those too, which passes 2^31 at 31 levels.
 	 */
-	public int size;
+	public long size;
 
 	public BSTNode(int key, Object value) {
 		this.key = key;
@@ -57,7 +57,7 @@ public class BasicBST extends BinarySearchTreeAdaptor implements
 		} else {
 			/* build subtrees */
 			BSTNode l = createPerfectSubtree(levels, depth + 1, nextId);
-			nextId += Math.pow(2, (levels - depth)) - 1;
+			nextId += (1 << (levels - depth)) - 1;
 
 			BSTNode p = createNode(nextId, new Integer(nextId));
 			++nextId;
@@ -10,6 +10,12 @@ public interface BinarySearchTree {
 
 	public static final int NIL_KEY = Integer.MIN_VALUE;
 
+	/**
+	 * The most levels a perfect tree can have, since its keys 1 .. 2^levels -
+	 * 1 must fit in an int
+	 */
+	public static final int MAX_LEVELS = 31;
+
 	/**
 	 * Insert a new key and value into the tree. Or, if the key is already
 	 * present in the tree, simply update the value
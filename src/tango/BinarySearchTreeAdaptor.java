@@ -8,11 +8,16 @@ import java.util.ArrayList;
  * @author Gregory Bint
  * 
  */
-public abstract class BinarySearchTreeAdaptor implements BinarySearchTree {
+public abstract class BinarySearchTreeAdaptor implements ResettableTree {
 
 	protected BSTNode _root;
 	protected TreeStats _stats;
 
+	/**
+	 * The nil leaves set aside by reset, chained through their right pointers
+	 */
+	private BSTNode _spareNils;
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * Construction
@@ -151,14 +156,204 @@ public abstract class BinarySearchTreeAdaptor implements BinarySearchTree {
 		return new TreeStats(_stats);
 	}
 
+	/**
+	 * Replaces the counters that this tree updates, carrying over the counts so
+	 * far. Pass a ConcurrentTreeStats if more than one thread will be counting
+	 * at a time.
+	 * 
+	 * @param stats
+	 *            the new counters
+	 */
+	public void setStats(TreeStats stats) {
+		stats.add(_stats);
+		_stats = stats;
+	}
+
 	@Override
 	public abstract void initializePerfectTree(int levels);
 
+	/**
+	 * Rebuilds the perfect tree in place, after Day, Stout and Warren: the tree
+	 * is rotated into a vine in symmetric order, and the vine is then
+	 * compressed level by level into a perfect tree. Since the nodes keep their
+	 * order, each one lands back where initializePerfectTree put it. The nil
+	 * leaves are set aside on the way down and hung back off the bottom level.
+	 */
+	@Override
+	public void reset() {
+		BSTNode head = null;
+		BSTNode tail = null;
+		BSTNode rest = _root;
+		long count = 0;
+
+		_spareNils = null;
+
+		// tree to vine, where every node only has a right child
+		while (rest != null && !isNilLeaf(rest)) {
+			BSTNode l = rest.left;
+
+			if (l != null && isNilLeaf(l)) {
+				setAsideNil(l);
+				l = rest.left = null;
+			}
+
+			if (l == null) {
+				BSTNode r = rest.right;
+
+				if (r != null && isNilLeaf(r)) {
+					setAsideNil(r);
+					r = rest.right = null;
+				}
+
+				if (tail == null) {
+					head = rest;
+				} else {
+					tail.right = rest;
+				}
+
+				tail = rest;
+				rest = r;
+				++count;
+			} else {
+				// rotate right, without any of the bookkeeping
+				rest.left = l.right;
+				l.right = rest;
+				rest = l;
+			}
+		}
+
+		if (((count + 1) & count) != 0) {
+			throw new IllegalStateException("Cannot reset a tree of " + count
+					+ " keys to a perfect tree");
+		}
+
+		// vine to tree, halving the length of the right spine each time
+		for (long m = count / 2; m > 0; m /= 2) {
+			BSTNode scanner = null;
+
+			for (long i = 0; i < m; ++i) {
+				BSTNode child;
+
+				if (scanner == null) {
+					child = head;
+					head = child.right;
+					scanner = head;
+				} else {
+					child = scanner.right;
+					scanner.right = child.right;
+					scanner = scanner.right;
+				}
+
+				child.right = scanner.left;
+				scanner.left = child;
+			}
+		}
+
+		if (head != null) {
+			_root = head;
+			resetSubtree(head, null, 0);
+		}
+
+		_spareNils = null;
+		_stats.reset();
+	}
+
+	private void setAsideNil(BSTNode nil) {
+		nil.parent = null;
+		nil.right = _spareNils;
+		_spareNils = nil;
+	}
+
+	/**
+	 * Restores the parents, sizes and per-type properties of a subtree which
+	 * already has its perfect shape, giving its leaves their nil leaves back
+	 */
+	private void resetSubtree(BSTNode n, BSTNode parent, int depth) {
+		n.parent = parent;
+		n.size = 1;
+
+		if (n.left != null) {
+			resetSubtree(n.left, n, depth + 1);
+			resetSubtree(n.right, n, depth + 1);
+		} else {
+			BSTNode nl = takeSpareNil();
+
+			if (nl != null) {
+				n.left = resetNilLeaf(nl, n, depth + 1);
+				n.right = resetNilLeaf(takeSpareNil(), n, depth + 1);
+			}
+		}
+
+		if (n.left != null)
+			n.size += n.left.size + n.right.size;
+
+		resetNode(n, depth);
+	}
+
+	private BSTNode takeSpareNil() {
+		BSTNode nil = _spareNils;
+
+		if (nil == null)
+			return createResetNil();
+
+		_spareNils = nil.right;
+		nil.right = null;
+
+		return nil;
+	}
+
+	private BSTNode resetNilLeaf(BSTNode nil, BSTNode parent, int depth) {
+		nil.parent = parent;
+		nil.left = null;
+		nil.right = null;
+		nil.size = 1;
+
+		resetNil(nil, depth);
+
+		return nil;
+	}
+
 	/*
 	 * Adaptor requirements
 	 */
 	protected abstract BSTNode createNode(int key, Object value);
 
+	/**
+	 * Creates a nil leaf for reset to use when the tree has fewer left than it
+	 * needs. Only trees with nil leaves need to override this.
+	 * 
+	 * @return a new nil leaf, or null if this type of tree has no nil leaves
+	 */
+	protected BSTNode createResetNil() {
+		return null;
+	}
+
+	/**
+	 * Restores the properties that initializePerfectTree gives a node, other
+	 * than its links and size. Its children have already been restored.
+	 * 
+	 * @param n
+	 *            the node to restore
+	 * @param depth
+	 *            the depth of n in the perfect tree
+	 */
+	protected void resetNode(BSTNode n, int depth) {
+		// a plain BST has nothing more to restore
+	}
+
+	/**
+	 * Restores the properties that initializePerfectTree gives a nil leaf,
+	 * other than its links and size
+	 * 
+	 * @param nil
+	 *            the nil leaf to restore
+	 * @param depth
+	 *            the depth of nil in the perfect tree
+	 */
+	protected void resetNil(BSTNode nil, int depth) {
+		// a plain BST has no nil leaves
+	}
+
 	/*
 	 * Search Utilities
 	 */
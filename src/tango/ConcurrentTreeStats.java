@@ -0,0 +1,73 @@
+package tango;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TreeStats that may be updated by many threads at once. Each counter is a
+ * LongAdder, which spreads contended increments over per-thread cells instead
+ * of fighting over one cache line, and only sums the cells when a count is
+ * read. Reading is therefore the expensive part, and is meant to happen in
+ * getStats rather than in a loop.
+ * 
+ * Single-threaded trees should keep the plain TreeStats, whose increments are
+ * cheaper still.
+ * 
+ * @author Gregory Bint
+ * 
+ */
+public class ConcurrentTreeStats extends TreeStats {
+	private final LongAdder _numRotations = new LongAdder();
+	private final LongAdder _numTraversals = new LongAdder();
+	private final LongAdder _numOtherTraversals = new LongAdder();
+
+	public ConcurrentTreeStats() {
+		// all counts start at zero
+	}
+
+	@Override
+	public long getRotations() {
+		return _numRotations.sum();
+	}
+
+	@Override
+	public long getTraversals() {
+		return _numTraversals.sum();
+	}
+
+	@Override
+	public long getOtherTraversals() {
+		return _numOtherTraversals.sum();
+	}
+
+	@Override
+	public void incRotations() {
+		_numRotations.increment();
+	}
+
+	@Override
+	public void incTraversals() {
+		_numTraversals.increment();
+	}
+
+	@Override
+	public void incOtherTraversals() {
+		_numOtherTraversals.increment();
+	}
+
+	@Override
+	public void add(TreeStats other) {
+		_numRotations.add(other.getRotations());
+		_numTraversals.add(other.getTraversals());
+		_numOtherTraversals.add(other.getOtherTraversals());
+	}
+
+	/**
+	 * Only exact if no other thread is counting at the same time
+	 */
+	@Override
+	public void reset() {
+		_numRotations.reset();
+		_numTraversals.reset();
+		_numOtherTraversals.reset();
+	}
+}
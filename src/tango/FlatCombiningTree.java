@@ -0,0 +1,251 @@
+package tango;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A flat-combining front end that makes any BinarySearchTree safe to share
+ * between threads. Each thread publishes its operation in a slot of its own,
+ * and whichever thread gets the combiner lock applies every pending operation
+ * in one pass while the others wait on their slots. The tree is only ever
+ * touched by the combiner, so self-adjusting trees work unchanged, and the
+ * lock is taken once per batch instead of once per operation.
+ *
+ * Slots are never unlinked, so the combiner scans one slot for every thread
+ * that has ever used the tree. This suits a fixed pool of worker threads.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class FlatCombiningTree implements BinarySearchTree {
+
+	/**
+	 * How many passes a combiner makes over the slots before handing off, so
+	 * that requests arriving during a pass can join the batch.
+	 */
+	private static final int COMBINING_PASSES = 2;
+
+	private static final int OP_SEARCH = 1;
+	private static final int OP_INSERT = 2;
+	private static final int OP_REMOVE = 3;
+
+	private final BinarySearchTree _tree;
+	private final AtomicBoolean _combining = new AtomicBoolean(false);
+
+	/**
+	 * The head of the list of every thread's slot
+	 */
+	private final AtomicReference<Slot> _slots = new AtomicReference<Slot>();
+
+	private final ThreadLocal<Slot> _localSlot = new ThreadLocal<Slot>() {
+		@Override
+		protected Slot initialValue() {
+			Slot s = new Slot();
+
+			Slot head;
+
+			do {
+				head = _slots.get();
+				s._next = head;
+			} while (!_slots.compareAndSet(head, s));
+
+			return s;
+		}
+	};
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+
+	/**
+	 * @param tree
+	 *            the tree to front. It should not be used directly afterwards.
+	 */
+	public FlatCombiningTree(BinarySearchTree tree) {
+		assert (tree != null);
+
+		_tree = tree;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * BinarySearchTree Implementation
+	 */
+
+	@Override
+	public Object search(int key) {
+		try {
+			return execute(OP_SEARCH, key, null);
+		} catch (OperationNotPermitted e) {
+			// searches do not throw this
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public BSTNode insert(int key, Object value) throws OperationNotPermitted {
+		return (BSTNode) execute(OP_INSERT, key, value);
+	}
+
+	@Override
+	public Object remove(int key) throws OperationNotPermitted {
+		return execute(OP_REMOVE, key, null);
+	}
+
+	@Override
+	public BSTNode getRoot() {
+		return _tree.getRoot();
+	}
+
+	@Override
+	public TreeStats getStats() {
+		lockCombiner();
+
+		try {
+			return _tree.getStats();
+		} finally {
+			_combining.set(false);
+		}
+	}
+
+	@Override
+	public void initializePerfectTree(int levels) {
+		lockCombiner();
+
+		try {
+			_tree.initializePerfectTree(levels);
+		} finally {
+			_combining.set(false);
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Flat Combining
+	 */
+
+	/**
+	 * Publishes an operation in the calling thread's slot, and waits until it
+	 * has been applied, combining for the other threads if the combiner lock is
+	 * free.
+	 */
+	private Object execute(int op, int key, Object value)
+			throws OperationNotPermitted {
+		Slot s = _localSlot.get();
+
+		s._op = op;
+		s._key = key;
+		s._value = value;
+		s._pending = true;
+
+		while (s._pending) {
+			if (!_combining.get() && _combining.compareAndSet(false, true)) {
+				try {
+					combine();
+				} finally {
+					_combining.set(false);
+				}
+			} else {
+				Thread.yield();
+			}
+		}
+
+		Object result = s._result;
+		Throwable failure = s._failure;
+
+		s._value = null;
+		s._result = null;
+		s._failure = null;
+
+		if (failure == null)
+			return result;
+
+		if (failure instanceof OperationNotPermitted) {
+			throw (OperationNotPermitted) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else {
+			throw new RuntimeException(failure);
+		}
+	}
+
+	/**
+	 * Applies every pending operation. Must only be called while holding the
+	 * combiner lock.
+	 */
+	private void combine() {
+		for (int pass = 0; pass < COMBINING_PASSES; ++pass) {
+			for (Slot s = _slots.get(); s != null; s = s._next) {
+				if (s._pending) {
+					apply(s);
+
+					// publishes _result and _failure to the waiting thread
+					s._pending = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies one slot's operation. Whatever the tree throws is stored in the
+	 * slot for its owner to rethrow, so that a failure never escapes on the
+	 * combiner's thread and the slot is always released.
+	 */
+	private void apply(Slot s) {
+		try {
+			switch (s._op) {
+			case OP_SEARCH:
+				s._result = _tree.search(s._key);
+				break;
+			case OP_INSERT:
+				s._result = _tree.insert(s._key, s._value);
+				break;
+			case OP_REMOVE:
+				s._result = _tree.remove(s._key);
+				break;
+			default:
+				assert (false);
+			}
+		} catch (Throwable t) {
+			s._failure = t;
+		}
+	}
+
+	private void lockCombiner() {
+		while (!_combining.compareAndSet(false, true)) {
+			Thread.yield();
+		}
+	}
+
+	@Override
+	public String toString() {
+		lockCombiner();
+
+		try {
+			return _tree.toString();
+		} finally {
+			_combining.set(false);
+		}
+	}
+
+	/**
+	 * A thread's published operation. Only the owning thread writes the request
+	 * fields, and only the combiner writes the response fields; the volatile
+	 * _pending flag hands the slot back and forth between them.
+	 */
+	private static class Slot {
+		private int _op;
+		private int _key;
+		private Object _value;
+
+		private Object _result;
+		private Throwable _failure;
+
+		private volatile boolean _pending = false;
+
+		private Slot _next;
+	}
+}
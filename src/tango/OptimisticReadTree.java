@@ -0,0 +1,250 @@
+package tango;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe wrapper for trees whose searches do not change their
+ * structure, such as BasicBST and RedBlackTree. Writers take a StampedLock
+ * exclusively, while readers walk the tree under an optimistic read stamp and
+ * only fall back to a shared read lock if a writer got in their way. Readers
+ * never write to shared memory: their traversal counts are kept per thread and
+ * only merged in getStats.
+ *
+ * Self-adjusting trees (SplayTree, the Tango trees) restructure on every
+ * search, and cannot be wrapped.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class OptimisticReadTree implements BinarySearchTree {
+
+	/**
+	 * How many steps an optimistic reader takes between validations. A reader
+	 * that races a rotation can be led around a cycle, so it must check in
+	 * periodically rather than only at the end.
+	 */
+	private static final int VALIDATE_INTERVAL = 64;
+
+	private final BinarySearchTree _tree;
+	private final StampedLock _lock = new StampedLock();
+
+	/**
+	 * The traversal counts of every reader thread
+	 */
+	private final ArrayList<TreeStats> _readerStats = new ArrayList<TreeStats>();
+
+	private final ThreadLocal<Reader> _reader = new ThreadLocal<Reader>() {
+		@Override
+		protected Reader initialValue() {
+			Reader r = new Reader();
+
+			synchronized (_readerStats) {
+				_readerStats.add(r._stats);
+			}
+
+			return r;
+		}
+	};
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+
+	/**
+	 * @param tree
+	 *            the tree to wrap. It should not be used directly afterwards.
+	 */
+	public OptimisticReadTree(BinarySearchTree tree) {
+		if (tree instanceof SplayTree || tree instanceof TangoTree) {
+			throw new IllegalArgumentException(
+					"Self-adjusting trees cannot be read concurrently");
+		}
+
+		_tree = tree;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * BinarySearchTree Implementation
+	 */
+
+	@Override
+	public BSTNode insert(int key, Object value) throws OperationNotPermitted {
+		long stamp = _lock.writeLock();
+
+		try {
+			return _tree.insert(key, value);
+		} finally {
+			_lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public Object remove(int key) throws OperationNotPermitted {
+		long stamp = _lock.writeLock();
+
+		try {
+			return _tree.remove(key);
+		} finally {
+			_lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Searches without locking if no writer intervenes. As with
+	 * BinarySearchTreeAdaptor, the value of the last node seen is returned.
+	 * Only the walk that returns is counted, so a retried search counts as
+	 * many traversals as it would on the wrapped tree.
+	 */
+	@Override
+	public Object search(int key) {
+		Reader r = _reader.get();
+
+		long stamp = _lock.tryOptimisticRead();
+
+		if (stamp != 0) {
+			r._attempt.reset();
+
+			try {
+				Object value = searchOptimistic(key, stamp, r._attempt);
+
+				if (_lock.validate(stamp)) {
+					r._stats.add(r._attempt);
+					return value;
+				}
+
+			} catch (RuntimeException e) {
+				// a writer left us looking at a half-made change; retry below
+			}
+		}
+
+		stamp = _lock.readLock();
+
+		try {
+			return searchLocked(key, r._stats);
+		} finally {
+			_lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public BSTNode getRoot() {
+		return _tree.getRoot();
+	}
+
+	/**
+	 * Merges the counts of the wrapped tree with those of every reader. Counts
+	 * from readers that are still running may be slightly behind.
+	 */
+	@Override
+	public TreeStats getStats() {
+		long stamp = _lock.readLock();
+
+		try {
+			TreeStats stats = _tree.getStats();
+
+			synchronized (_readerStats) {
+				for (TreeStats s : _readerStats) {
+					stats.add(s);
+				}
+			}
+
+			return stats;
+		} finally {
+			_lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public void initializePerfectTree(int levels) {
+		long stamp = _lock.writeLock();
+
+		try {
+			_tree.initializePerfectTree(levels);
+		} finally {
+			_lock.unlockWrite(stamp);
+		}
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Search
+	 */
+
+	/**
+	 * Walks the tree without holding a lock. The result, and the traversals
+	 * counted into stats, are only meaningful if the stamp is still valid
+	 * afterwards.
+	 */
+	private Object searchOptimistic(int key, long stamp, TreeStats stats) {
+		BSTNode n = _tree.getRoot();
+		BSTNode p = null;
+		int steps = 0;
+
+		while (n != null) {
+			p = n;
+
+			stats.incTraversals();
+
+			if (key < n.key) {
+				n = n.left;
+			} else if (key > n.key) {
+				n = n.right;
+			} else {
+				break;
+			}
+
+			if (++steps == VALIDATE_INTERVAL) {
+				if (!_lock.validate(stamp))
+					return null;
+
+				steps = 0;
+			}
+		}
+
+		return (p == null ? null : p.value);
+	}
+
+	private Object searchLocked(int key, TreeStats stats) {
+		BSTNode n = _tree.getRoot();
+		BSTNode p = null;
+
+		while (n != null) {
+			p = n;
+
+			stats.incTraversals();
+
+			if (key < n.key) {
+				n = n.left;
+			} else if (key > n.key) {
+				n = n.right;
+			} else {
+				break;
+			}
+		}
+
+		return (p == null ? null : p.value);
+	}
+
+	@Override
+	public String toString() {
+		long stamp = _lock.readLock();
+
+		try {
+			return _tree.toString();
+		} finally {
+			_lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * A reader thread's counts: those of its completed searches, and those of
+	 * the optimistic walk in progress, which are dropped if it is retried
+	 */
+	private static class Reader {
+		private final TreeStats _stats = new TreeStats();
+		private final TreeStats _attempt = new TreeStats();
+	}
+}
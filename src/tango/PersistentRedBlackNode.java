@@ -0,0 +1,41 @@
+package tango;
+
+/**
+ * An immutable node of a PersistentRedBlackTree. Nodes are shared between
+ * versions of the tree, so they have no parent pointer and are never changed
+ * after construction.
+ *
+ * @author Gregory Bint
+ *
+ */
+public final class PersistentRedBlackNode {
+	public final int key;
+	public final Object value;
+
+	public final RBColor color;
+
+	public final PersistentRedBlackNode left;
+	public final PersistentRedBlackNode right;
+
+	/**
+	 * The size of the subtree rooted at this node, including the node itself
+	 */
+	public final int size;
+
+	public PersistentRedBlackNode(int key, Object value, RBColor color,
+			PersistentRedBlackNode left, PersistentRedBlackNode right) {
+		this.key = key;
+		this.value = value;
+		this.color = color;
+		this.left = left;
+		this.right = right;
+
+		this.size = 1 + (left != null ? left.size : 0)
+				+ (right != null ? right.size : 0);
+	}
+
+	@Override
+	public String toString() {
+		return key + ":" + size + ":" + color;
+	}
+}
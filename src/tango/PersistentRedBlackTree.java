@@ -0,0 +1,354 @@
+package tango;
+
+import java.util.ArrayList;
+
+/**
+ * A persistent Red/Black tree. Every version is immutable: insert and remove
+ * copy only the nodes on (and immediately beside) the search path and return a
+ * new version, sharing everything else with the old one. Readers can hold on
+ * to any version for as long as they like without locking, while a writer
+ * derives and publishes newer versions.
+ *
+ * Without parent pointers the top-down rebalancing of left-leaning Red/Black
+ * trees is used, so each update allocates O(log n) nodes.
+ *
+ * @author Gregory Bint
+ *
+ */
+public final class PersistentRedBlackTree {
+
+	private static final PersistentRedBlackTree EMPTY = new PersistentRedBlackTree(
+			null);
+
+	private final PersistentRedBlackNode _root;
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+	private PersistentRedBlackTree(PersistentRedBlackNode root) {
+		_root = root;
+	}
+
+	/**
+	 * @return the empty tree
+	 */
+	public static PersistentRedBlackTree empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Creates a perfect binary search tree, with every node black
+	 *
+	 * @param levels
+	 *            the number of levels to produce in the tree. A tree with k
+	 *            levels will have nodes 1 .. 2^k -1
+	 */
+	public static PersistentRedBlackTree createPerfectTree(int levels) {
+		return new PersistentRedBlackTree(createPerfectSubtree(levels, 1));
+	}
+
+	private static PersistentRedBlackNode createPerfectSubtree(int levels,
+			int nextId) {
+		if (levels == 0) {
+			return null;
+		}
+
+		PersistentRedBlackNode l = createPerfectSubtree(levels - 1, nextId);
+		nextId += (1 << (levels - 1)) - 1;
+
+		int key = nextId;
+		++nextId;
+
+		PersistentRedBlackNode r = createPerfectSubtree(levels - 1, nextId);
+
+		return new PersistentRedBlackNode(key, Integer.valueOf(key),
+				RBColor.BLACK, l, r);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Persistent Operations
+	 */
+
+	/**
+	 * Insert a new key and value, or update the value if the key is already
+	 * present. This version is not changed.
+	 *
+	 * @param key
+	 *            the key to insert
+	 * @param value
+	 *            the value to associate with the given key
+	 * @return the new version of the tree
+	 */
+	public PersistentRedBlackTree insert(int key, Object value) {
+		PersistentRedBlackNode r = insert(_root, key, value);
+
+		return new PersistentRedBlackTree(paint(r, RBColor.BLACK));
+	}
+
+	/**
+	 * Removes the given key. This version is not changed.
+	 *
+	 * @param key
+	 *            the key to remove
+	 * @return the new version of the tree, or this version if the key is not
+	 *         present
+	 */
+	public PersistentRedBlackTree remove(int key) {
+		if (searchByKey(key) == null)
+			return this;
+
+		PersistentRedBlackNode r = _root;
+
+		if (!isRed(r.left) && !isRed(r.right))
+			r = paint(r, RBColor.RED);
+
+		r = remove(r, key);
+
+		if (r == null)
+			return EMPTY;
+
+		return new PersistentRedBlackTree(paint(r, RBColor.BLACK));
+	}
+
+	/**
+	 * Searches for the given key
+	 *
+	 * @param key
+	 *            the key to search for
+	 * @return the value associated with key, or null if it is not present
+	 */
+	public Object search(int key) {
+		PersistentRedBlackNode n = searchByKey(key);
+
+		return (n == null ? null : n.value);
+	}
+
+	/**
+	 * @return the root node of this version
+	 */
+	public PersistentRedBlackNode getRoot() {
+		return _root;
+	}
+
+	/**
+	 * @return the number of keys in this version
+	 */
+	public int size() {
+		return (_root == null ? 0 : _root.size);
+	}
+
+	private PersistentRedBlackNode searchByKey(int key) {
+		PersistentRedBlackNode n = _root;
+
+		while (n != null) {
+			if (key < n.key) {
+				n = n.left;
+			} else if (key > n.key) {
+				n = n.right;
+			} else {
+				return n;
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Path Copying
+	 */
+
+	private static PersistentRedBlackNode insert(PersistentRedBlackNode h,
+			int key, Object value) {
+		if (h == null)
+			return new PersistentRedBlackNode(key, value, RBColor.RED, null,
+					null);
+
+		if (key < h.key) {
+			h = withLeft(h, insert(h.left, key, value));
+		} else if (key > h.key) {
+			h = withRight(h, insert(h.right, key, value));
+		} else {
+			h = new PersistentRedBlackNode(key, value, h.color, h.left, h.right);
+		}
+
+		return balance(h);
+	}
+
+	/**
+	 * Removes key from the subtree at h, which must contain it. Assumes that
+	 * either h or h.left is red.
+	 */
+	private static PersistentRedBlackNode remove(PersistentRedBlackNode h,
+			int key) {
+		if (key < h.key) {
+			if (!isRed(h.left) && !isRed(h.left.left))
+				h = moveRedLeft(h);
+
+			h = withLeft(h, remove(h.left, key));
+		} else {
+			if (isRed(h.left))
+				h = rotateRight(h);
+
+			if (key == h.key && h.right == null)
+				return null;
+
+			if (!isRed(h.right) && !isRed(h.right.left))
+				h = moveRedRight(h);
+
+			if (key == h.key) {
+				// replace h by its successor, and remove that instead
+				PersistentRedBlackNode m = getMinimumChild(h.right);
+
+				h = new PersistentRedBlackNode(m.key, m.value, h.color,
+						h.left, removeMinimum(h.right));
+			} else {
+				h = withRight(h, remove(h.right, key));
+			}
+		}
+
+		return balance(h);
+	}
+
+	private static PersistentRedBlackNode removeMinimum(PersistentRedBlackNode h) {
+		if (h.left == null)
+			return null;
+
+		if (!isRed(h.left) && !isRed(h.left.left))
+			h = moveRedLeft(h);
+
+		h = withLeft(h, removeMinimum(h.left));
+
+		return balance(h);
+	}
+
+	private static PersistentRedBlackNode getMinimumChild(
+			PersistentRedBlackNode n) {
+		while (n.left != null) {
+			n = n.left;
+		}
+
+		return n;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Rebalancing. Each of these returns new nodes in place of the ones they
+	 * would otherwise modify.
+	 */
+
+	private static PersistentRedBlackNode balance(PersistentRedBlackNode h) {
+		if (isRed(h.right) && !isRed(h.left))
+			h = rotateLeft(h);
+
+		if (isRed(h.left) && isRed(h.left.left))
+			h = rotateRight(h);
+
+		if (isRed(h.left) && isRed(h.right))
+			h = flipColors(h);
+
+		return h;
+	}
+
+	private static PersistentRedBlackNode moveRedLeft(PersistentRedBlackNode h) {
+		h = flipColors(h);
+
+		if (isRed(h.right.left)) {
+			h = withRight(h, rotateRight(h.right));
+			h = rotateLeft(h);
+			h = flipColors(h);
+		}
+
+		return h;
+	}
+
+	private static PersistentRedBlackNode moveRedRight(PersistentRedBlackNode h) {
+		h = flipColors(h);
+
+		if (isRed(h.left.left)) {
+			h = rotateRight(h);
+			h = flipColors(h);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Brings up h.right, and pushes down h
+	 */
+	private static PersistentRedBlackNode rotateLeft(PersistentRedBlackNode h) {
+		PersistentRedBlackNode x = h.right;
+
+		PersistentRedBlackNode n = new PersistentRedBlackNode(h.key, h.value,
+				RBColor.RED, h.left, x.left);
+
+		return new PersistentRedBlackNode(x.key, x.value, h.color, n, x.right);
+	}
+
+	/**
+	 * Brings up h.left, and pushes down h
+	 */
+	private static PersistentRedBlackNode rotateRight(PersistentRedBlackNode h) {
+		PersistentRedBlackNode x = h.left;
+
+		PersistentRedBlackNode n = new PersistentRedBlackNode(h.key, h.value,
+				RBColor.RED, x.right, h.right);
+
+		return new PersistentRedBlackNode(x.key, x.value, h.color, x.left, n);
+	}
+
+	private static PersistentRedBlackNode flipColors(PersistentRedBlackNode h) {
+		return new PersistentRedBlackNode(h.key, h.value, flip(h.color),
+				paint(h.left, flip(h.left.color)), paint(h.right,
+						flip(h.right.color)));
+	}
+
+	private static PersistentRedBlackNode withLeft(PersistentRedBlackNode h,
+			PersistentRedBlackNode l) {
+		return new PersistentRedBlackNode(h.key, h.value, h.color, l, h.right);
+	}
+
+	private static PersistentRedBlackNode withRight(PersistentRedBlackNode h,
+			PersistentRedBlackNode r) {
+		return new PersistentRedBlackNode(h.key, h.value, h.color, h.left, r);
+	}
+
+	private static PersistentRedBlackNode paint(PersistentRedBlackNode h,
+			RBColor color) {
+		if (h == null || h.color == color)
+			return h;
+
+		return new PersistentRedBlackNode(h.key, h.value, color, h.left,
+				h.right);
+	}
+
+	private static RBColor flip(RBColor c) {
+		return (c == RBColor.RED ? RBColor.BLACK : RBColor.RED);
+	}
+
+	private static boolean isRed(PersistentRedBlackNode n) {
+		return (n != null && n.color == RBColor.RED);
+	}
+
+	@Override
+	public String toString() {
+		// return an in-order traversal from the root
+		ArrayList<Integer> elements = new ArrayList<Integer>();
+
+		fillInOrderElements(_root, elements);
+
+		return elements.toString();
+	}
+
+	private static void fillInOrderElements(PersistentRedBlackNode n,
+			ArrayList<Integer> elements) {
+		if (n == null)
+			return;
+
+		fillInOrderElements(n.left, elements);
+		elements.add(n.key);
+		fillInOrderElements(n.right, elements);
+	}
+}
@@ -1,5 +1,7 @@
 package tango;
 
+import java.util.ArrayList;
+
 /**
  * Red/Black Tango
  * 
@@ -9,7 +11,7 @@ package tango;
  * @author Gregory Bint
  * 
  */
-public class RedBlackTango extends TangoTree {
+public class RedBlackTango extends TangoTree implements SplittableTree {
 
 	/*
 	 * -----------------------------------------------------------------------
@@ -70,7 +72,7 @@ public class RedBlackTango extends TangoTree {
 		} else {
 			/* build subtrees */
 			RedBlackNode l = createPerfectSubtree(levels, depth + 1, nextId);
-			nextId += Math.pow(2, (levels - depth)) - 1;
+			nextId += (1 << (levels - depth)) - 1;
 
 			RedBlackNode p = createNode(nextId, new Integer(nextId));
 			++nextId;
@@ -96,6 +98,234 @@ public class RedBlackTango extends TangoTree {
 		}
 	}
 
+	@Override
+	protected void resetNode(BSTNode n, int depth) {
+		super.resetNode(n, depth);
+
+		RedBlackNode r = (RedBlackNode) n;
+
+		r.color = RBColor.BLACK;
+		r.blackHeight = 2; // a singleton aux tree with 2 virtual nils
+	}
+
+	@Override
+	protected void resetNil(BSTNode nil, int depth) {
+		super.resetNil(nil, depth);
+
+		RedBlackNode r = (RedBlackNode) nil;
+
+		r.color = RBColor.BLACK;
+		r.blackHeight = 1;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Split
+	 */
+
+	/**
+	 * Splits this tree into two Red/Black Tango trees. The reference path to
+	 * key is first made the preferred path of the top aux tree, with the same
+	 * cuts and joins as a search but without counting them as one; the
+	 * ordinary Tango split then separates that aux tree in O(log n) and every
+	 * other aux tree, with its preferred path, is kept whole. The path to key
+	 * is therefore preferred in the two halves. The nodes are moved rather
+	 * than copied, so this tree is left empty afterwards.
+	 * 
+	 * The reference depths of the nodes below any path node that changes
+	 * sides are one deeper than they should be in the new reference tree.
+	 * Only the top aux tree of each half is rebased; the aux trees hanging
+	 * below it are each a reference subtree that loses the same path nodes
+	 * throughout, so they are left a pending depth shift instead. This keeps
+	 * the split to the O(log n) nodes of the top aux trees.
+	 * 
+	 * @param key
+	 *            the key to split at
+	 * @return two trees; the first holds every key less than the given key,
+	 *         the second every key greater than or equal to it
+	 */
+	@Override
+	public RedBlackTango[] split(int key) {
+		RedBlackTango lt = new RedBlackTango();
+		RedBlackTango rt = new RedBlackTango();
+
+		// find s, the smallest key >= key, across all aux trees
+		RedBlackNode s = null;
+		RedBlackNode x = (RedBlackNode) _root;
+
+		while (!isNilLeaf(x)) {
+			if (key <= x.key) {
+				s = x;
+				x = (RedBlackNode) x.left;
+			} else {
+				x = (RedBlackNode) x.right;
+			}
+		}
+
+		if (s == null) {
+			// every key belongs on the left
+			lt._root = _root;
+			rt._root = createEmptyRoot();
+
+		} else {
+			// brings the reference path to s into the top aux tree
+			preferPath(s.key);
+
+			/*
+			 * Record the reference interval of every node on the path to s, so
+			 * that we know which subtrees each half loses a path node above
+			 */
+			TangoNode[] path = new TangoNode[s.depth + 1];
+			collectAuxPath((TangoNode) _root, s.depth, path);
+
+			ArrayList<long[]> leftSpliced = new ArrayList<long[]>();
+			ArrayList<long[]> rightSpliced = new ArrayList<long[]>();
+
+			long lo = Long.MIN_VALUE;
+			long hi = Long.MAX_VALUE;
+
+			for (int d = 0; d <= s.depth; ++d) {
+				TangoNode p = path[d];
+				long[] interval = new long[] { lo, hi };
+
+				if (p.key >= s.key) {
+					leftSpliced.add(interval);
+					hi = 2L * p.key;
+				} else {
+					rightSpliced.add(interval);
+					lo = 2L * p.key;
+				}
+			}
+
+			/*
+			 * Bring s up to the root; everything less than s is now on its left
+			 */
+			tangoSplitImpl(s, _root);
+
+			RedBlackNode tl = (RedBlackNode) s.left;
+			RedBlackNode sr = (RedBlackNode) s.right;
+
+			detach(tl, s);
+			detach(sr, s);
+			unmarkNode(s);
+
+			// the nil between s and its predecessor stays with tl
+			RedBlackNode nil = createNil();
+			nil.depth = s.depth + 1;
+
+			RedBlackNode tr = tangoMergeRedBlack(nil, s, sr);
+
+			if (isNilLeaf(tl)) {
+				tl = createEmptyRoot();
+			} else {
+				markNode(tl);
+				rebaseAuxTree(tl, leftSpliced);
+			}
+
+			markNode(tr);
+			rebaseAuxTree(tr, rightSpliced);
+
+			lt._root = tl;
+			rt._root = tr;
+		}
+
+		_root = createEmptyRoot();
+
+		return new RedBlackTango[] { lt, rt };
+	}
+
+	/**
+	 * Brings the reference path to key into the top aux tree, as a search for
+	 * key does, but counts nothing; this is part of a split, not an access
+	 */
+	private void preferPath(int key) {
+		TreeStats counted = _stats;
+		_stats = new TreeStats();
+
+		try {
+			search(key);
+		} finally {
+			_stats = counted;
+		}
+	}
+
+	/**
+	 * Places the nodes of the aux tree rooted at x with depth at most maxDepth
+	 * into path, indexed by depth
+	 */
+	private void collectAuxPath(TangoNode x, int maxDepth, TangoNode[] path) {
+		if (x.depth <= maxDepth) {
+			path[x.depth] = x;
+		}
+
+		if (!isTangoLeaf(x.left))
+			collectAuxPath((TangoNode) x.left, maxDepth, path);
+
+		if (!isTangoLeaf(x.right))
+			collectAuxPath((TangoNode) x.right, maxDepth, path);
+	}
+
+	/**
+	 * Subtracts from the depth of every node in the aux tree at x the number
+	 * of spliced path nodes above it, then restores min/max depths and sizes.
+	 * The aux trees hanging below are given a pending depth shift instead.
+	 * 
+	 * Positions are doubled keys, so that a nil leaf can sit strictly between
+	 * its neighbours.
+	 * 
+	 * @param x
+	 *            the top aux tree to rebase
+	 * @param spliced
+	 *            the open reference intervals of the path nodes that were
+	 *            removed from this half
+	 */
+	private void rebaseAuxTree(TangoNode x, ArrayList<long[]> spliced) {
+		x.depth -= countSpliced(2L * x.key, spliced);
+
+		rebaseAuxChild((TangoNode) x.left, 2L * x.key - 1, spliced);
+		rebaseAuxChild((TangoNode) x.right, 2L * x.key + 1, spliced);
+
+		updateMinMax(x);
+		updateSubtreeSize(x);
+	}
+
+	private void rebaseAuxChild(TangoNode c, long pos,
+			ArrayList<long[]> spliced) {
+		if (isNilLeaf(c)) {
+			c.depth -= countSpliced(pos, spliced);
+		} else if (isMarked(c)) {
+			// a reference subtree lies wholly inside or outside each interval
+			int shift = c.depthShift - countSpliced(2L * c.key, spliced);
+
+			assert (shift >= Byte.MIN_VALUE);
+			c.depthShift = (byte) shift;
+		} else {
+			rebaseAuxTree(c, spliced);
+		}
+	}
+
+	private static int countSpliced(long pos, ArrayList<long[]> spliced) {
+		int count = 0;
+
+		for (long[] interval : spliced) {
+			if (interval[0] < pos && pos < interval[1])
+				++count;
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return the root of an empty tree, which is a marked nil
+	 */
+	private RedBlackNode createEmptyRoot() {
+		RedBlackNode nil = createNil();
+
+		markNode(nil);
+
+		return nil;
+	}
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * Tango Tree Implementation
@@ -7,7 +7,7 @@ package tango;
  * 
  */
 public class RedBlackTree extends BinarySearchTreeAdaptor implements
-		BinarySearchTree {
+		SplittableTree {
 
 	/*
 	 * -----------------------------------------------------------------------
@@ -110,8 +110,15 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 			 * predecessor and then deleting that instead
 			 */
 
-			// TODO verify which getMinimumChild is called by this
-			RedBlackNode n = (RedBlackNode) getPredecessorByNode(d);
+			// the predecessor is the last non-nil node down the right spine
+			// of d's left subtree; getPredecessorByNode would walk on to the
+			// nil leaf below it
+			RedBlackNode n = dl;
+
+			while (!isNilLeaf(n.right)) {
+				n = (RedBlackNode) n.right;
+				_stats.incOtherTraversals();
+			}
 
 			// copy n up to d
 			d.key = n.key;
@@ -168,6 +175,257 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 		return ret_payload;
 	}
 
+	/*
+	 * -----------------------------------------------------------------------
+	 * Split
+	 */
+
+	/**
+	 * Splits this tree into two Red/Black trees in O(log n). The nodes are
+	 * moved rather than copied, so this tree is left empty afterwards.
+	 * 
+	 * @param key
+	 *            the key to split at
+	 * @return two trees; the first holds every key less than the given key,
+	 *         the second every key greater than or equal to it
+	 */
+	@Override
+	public RedBlackTree[] split(int key) {
+		RedBlackTree lt = new RedBlackTree();
+		RedBlackTree rt = new RedBlackTree();
+
+		RedBlackNode k = (RedBlackNode) _root;
+		int kh = k.blackHeight;
+
+		// the nodes now belong to lt and rt
+		_root = createNil();
+
+		RedBlackNode tl = null; // the left tree
+		RedBlackNode vl = null; // the next pivot to use for the left tree
+		RedBlackNode tr = null; // the right tree
+		RedBlackNode vr = null; // the next pivot to use for the right tree
+
+		while (!isNilLeaf(k)) {
+			RedBlackNode kl = (RedBlackNode) k.left;
+			RedBlackNode kr = (RedBlackNode) k.right;
+
+			detach(kl, k);
+			detach(kr, k);
+
+			// make kl and kr into valid red black trees
+			int ch = kh - (isBlack(k) ? 1 : 0);
+
+			makeBlackRoot(kl, ch);
+			makeBlackRoot(kr, ch);
+
+			if (key <= k.key) {
+				tr = joinRedBlack(kr, vr, tr);
+
+				vr = k;
+				k = kl;
+			} else {
+				tl = joinRedBlack(tl, vl, kl);
+
+				vl = k;
+				k = kr;
+			}
+
+			kh = k.blackHeight;
+		}
+
+		/*
+		 * k is the nil leaf where the search for key ended. It closes off the
+		 * right tree, and the left tree gets a fresh one.
+		 */
+		tr = (vr == null ? k : joinRedBlack(k, vr, tr));
+		tl = (vl == null ? createNil() : joinRedBlack(tl, vl, createNil()));
+
+		lt._root = tl;
+		rt._root = tr;
+
+		return new RedBlackTree[] { lt, rt };
+	}
+
+	/**
+	 * Joins two Red/Black trees about a pivot. Both trees must have black
+	 * roots, and the blackHeight of each root must be correct.
+	 * 
+	 * @param nl
+	 *            the left tree. All values in this tree must be strictly less
+	 *            than n
+	 * @param n
+	 *            the singleton pivot node, or null if one of nl and nr is null
+	 * @param nr
+	 *            the right tree. All values in this tree must be strictly
+	 *            greater than n
+	 * @return the black root of the joined tree, with a correct blackHeight
+	 */
+	private RedBlackNode joinRedBlack(RedBlackNode nl, RedBlackNode n,
+			RedBlackNode nr) {
+
+		if (n == null) {
+			assert (nl == null || nr == null);
+
+			return (nl != null ? nl : nr);
+		}
+
+		int lh = nl.blackHeight;
+		int rh = nr.blackHeight;
+
+		if (lh == rh) {
+			/*
+			 * n can simply sit on top of nl and nr
+			 */
+			attachLeft(nl, n);
+			attachRight(nr, n);
+			updateSubtreeSize(n);
+
+			n.color = RBColor.BLACK;
+			n.blackHeight = lh + 1;
+
+			return n;
+
+		} else if (lh > rh) {
+			/*
+			 * nl is taller, so replace the black node of height rh on its right
+			 * spine with n
+			 */
+			RedBlackNode c = nl;
+			int h = lh;
+
+			while (!(isBlack(c) && h == rh)) {
+				h -= (isBlack(c) ? 1 : 0);
+				c = (RedBlackNode) c.right;
+			}
+
+			BSTNode p = c.parent;
+
+			detach(c, p);
+			attachLeft(c, n);
+			attachRight(nr, n);
+			attachRight(n, p);
+
+			n.color = RBColor.RED;
+			updateBlackHeight(n);
+			updateSubtreeSize(n);
+			updateSubtreeSizePath(p);
+
+			return joinFixUp(n, lh);
+
+		} else {
+			/*
+			 * nr is taller, so replace the black node of height lh on its left
+			 * spine with n
+			 */
+			RedBlackNode c = nr;
+			int h = rh;
+
+			while (!(isBlack(c) && h == lh)) {
+				h -= (isBlack(c) ? 1 : 0);
+				c = (RedBlackNode) c.left;
+			}
+
+			BSTNode p = c.parent;
+
+			detach(c, p);
+			attachRight(c, n);
+			attachLeft(nl, n);
+			attachLeft(n, p);
+
+			n.color = RBColor.RED;
+			updateBlackHeight(n);
+			updateSubtreeSize(n);
+			updateSubtreeSizePath(p);
+
+			return joinFixUp(n, rh);
+		}
+	}
+
+	/**
+	 * Repairs red/red violations above the red node n, which has just been
+	 * joined into a tree of the given black height. Unlike the insert fix up,
+	 * this stops at the root of a detached tree rather than at _root.
+	 * 
+	 * @param n
+	 *            the newly joined red node
+	 * @param bh
+	 *            the black height of the tree n was joined into
+	 * @return the root of the repaired tree, with a correct blackHeight
+	 */
+	private RedBlackNode joinFixUp(RedBlackNode n, int bh) {
+		RedBlackNode p = (RedBlackNode) n.parent;
+
+		while (p != null && isRed(n) && isRed(p)) {
+			// p is red, so it cannot be the root
+			RedBlackNode g = (RedBlackNode) p.parent;
+			RedBlackNode u = (RedBlackNode) (p == g.left ? g.right : g.left);
+
+			if (isRed(u)) {
+				p.color = RBColor.BLACK;
+				updateBlackHeight(p);
+				u.color = RBColor.BLACK;
+				updateBlackHeight(u);
+				g.color = RBColor.RED;
+				updateBlackHeight(g);
+
+				// there may now be a red/red violation at g
+				n = g;
+			} else {
+				if (p == g.left) {
+					if (n == p.right) {
+						rotateLeft(p);
+						p = n;
+					}
+
+					rotateRight(g);
+				} else {
+					if (n == p.left) {
+						rotateRight(p);
+						p = n;
+					}
+
+					rotateLeft(g);
+				}
+
+				p.color = RBColor.BLACK;
+				g.color = RBColor.RED;
+
+				updateBlackHeight(g);
+				updateBlackHeight(p);
+
+				n = p;
+			}
+
+			p = (RedBlackNode) n.parent;
+		}
+
+		// the fix up only climbs as far as the join point, so this is cheap
+		while (n.parent != null) {
+			n = (RedBlackNode) n.parent;
+		}
+
+		makeBlackRoot(n, bh);
+
+		return n;
+	}
+
+	/**
+	 * Paints the root of a tree black, recording its black height
+	 * 
+	 * @param n
+	 *            the root to paint
+	 * @param bh
+	 *            the black height of n before painting
+	 */
+	private void makeBlackRoot(RedBlackNode n, int bh) {
+		if (isRed(n)) {
+			n.color = RBColor.BLACK;
+			++bh;
+		}
+
+		n.blackHeight = bh;
+	}
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * BinarySearchTreeAdaptor Implementation
@@ -205,7 +463,7 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 		} else {
 			/* build subtrees */
 			RedBlackNode l = createPerfectSubtree(levels, depth + 1, nextId);
-			nextId += Math.pow(2, (levels - depth)) - 1;
+			nextId += (1 << (levels - depth)) - 1;
 
 			RedBlackNode p = createNode(nextId, new Integer(nextId));
 			++nextId;
@@ -227,6 +485,27 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 		}
 	}
 
+	@Override
+	protected BSTNode createResetNil() {
+		return createNil();
+	}
+
+	@Override
+	protected void resetNode(BSTNode n, int depth) {
+		RedBlackNode r = (RedBlackNode) n;
+
+		r.color = RBColor.BLACK;
+		r.blackHeight = ((RedBlackNode) r.right).blackHeight + 1;
+	}
+
+	@Override
+	protected void resetNil(BSTNode nil, int depth) {
+		RedBlackNode r = (RedBlackNode) nil;
+
+		r.color = RBColor.BLACK;
+		r.blackHeight = 1;
+	}
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * RedBlack Implementation
@@ -566,6 +845,7 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 			 */
 
 			s.color = RBColor.RED;
+			updateBlackHeight(s);
 
 			deleteFixUpCase1(p);
 			return;
@@ -602,6 +882,9 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 			s.color = RBColor.RED;
 			p.color = RBColor.BLACK;
 
+			// p is on the path that remove updates; s is not
+			updateBlackHeight(s);
+
 			// finished
 			return;
 		} else {
@@ -633,6 +916,10 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 				sr.color = RBColor.BLACK;
 
 				rotateLeft(s);
+
+				// sr is now n's sibling, with s below it
+				updateBlackHeight(s);
+				updateBlackHeight(sr);
 			}
 		} else {
 			// s is the right child of p, so its inner child wrt to p is its
@@ -643,6 +930,10 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 				sl.color = RBColor.BLACK;
 
 				rotateRight(s);
+
+				// sl is now n's sibling, with s below it
+				updateBlackHeight(s);
+				updateBlackHeight(sl);
 			}
 		}
 
@@ -670,12 +961,14 @@ public class RedBlackTree extends BinarySearchTreeAdaptor implements
 		if (isLeftChild(s)) {
 			// s is the left child of p, so its outer child wrt to p is its left
 			sl.color = RBColor.BLACK;
+			updateBlackHeight(sl);
 
 			rotateRight(p);
 		} else {
 			// s is the right child of p, so its outer child wrt to p is its
 			// right
 			sr.color = RBColor.BLACK;
+			updateBlackHeight(sr);
 
 			rotateLeft(p);
 		}
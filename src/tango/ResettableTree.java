@@ -0,0 +1,21 @@
+package tango;
+
+/**
+ * A Binary Search Tree that can be put back into the shape that
+ * initializePerfectTree gave it, reusing its own nodes
+ * 
+ * @author Gregory Bint
+ * 
+ */
+public interface ResettableTree extends BinarySearchTree {
+
+	/**
+	 * Returns this tree to the perfect tree it was built as, in time linear in
+	 * its size and without allocating. Every key keeps its value, and the
+	 * stats start again from zero.
+	 * 
+	 * @throws IllegalStateException
+	 *             if the tree no longer holds 2^k - 1 keys for some k
+	 */
+	public void reset();
+}
@@ -0,0 +1,432 @@
+package tango;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A forest of independent trees that range-partitions the key space. Each
+ * shard is owned by a single worker thread, which applies the operations fed to
+ * it through a bounded queue. Since only the owning thread ever touches a
+ * shard, self-adjusting trees need no locking and each keeps the access
+ * locality of its own key range.
+ *
+ * Searches can be submitted without waiting for them, which is how throughput
+ * scales with the number of shards; call drain to wait for them to complete.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class ShardedTree implements BinarySearchTree {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private final SplittableTree _prototype;
+	private final int _numShards;
+	private final int _queueCapacity;
+
+	/**
+	 * _bounds[i] is the smallest key owned by shard i + 1
+	 */
+	private int[] _bounds;
+	private Shard[] _shards;
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Construction
+	 */
+
+	/**
+	 * @param prototype
+	 *            the tree to build the shards from. It is split up by
+	 *            initializePerfectTree, and should not be used elsewhere.
+	 * @param numShards
+	 *            the number of shards, and worker threads, to use
+	 */
+	public ShardedTree(SplittableTree prototype, int numShards) {
+		this(prototype, numShards, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @param prototype
+	 *            the tree to build the shards from. It is split up by
+	 *            initializePerfectTree, and should not be used elsewhere.
+	 * @param numShards
+	 *            the number of shards, and worker threads, to use
+	 * @param queueCapacity
+	 *            the number of pending operations each shard will accept
+	 *            before submitters block
+	 */
+	public ShardedTree(SplittableTree prototype, int numShards,
+			int queueCapacity) {
+		assert (prototype != null);
+		assert (numShards >= 1);
+		assert (queueCapacity >= 1);
+
+		_prototype = prototype;
+		_numShards = numShards;
+		_queueCapacity = queueCapacity;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * BinarySearchTree Implementation
+	 */
+
+	/**
+	 * Builds a perfect tree from the prototype and splits it into shards of
+	 * (nearly) equal key ranges, each with its own worker thread. Any previous
+	 * shards are shut down first.
+	 */
+	@Override
+	public void initializePerfectTree(int levels) {
+		shutdown();
+
+		_prototype.initializePerfectTree(levels);
+
+		int n = (int) ((1L << levels) - 1);
+		int numShards = Math.min(_numShards, n);
+
+		_bounds = new int[numShards - 1];
+		_shards = new Shard[numShards];
+
+		BinarySearchTree rest = _prototype;
+
+		for (int i = 0; i < numShards - 1; ++i) {
+			_bounds[i] = 1 + (int) (((long) n * (i + 1)) / numShards);
+
+			BinarySearchTree[] parts = ((SplittableTree) rest)
+					.split(_bounds[i]);
+
+			_shards[i] = new Shard(i, parts[0]);
+			rest = parts[1];
+		}
+
+		_shards[numShards - 1] = new Shard(numShards - 1, rest);
+
+		for (Shard s : _shards) {
+			s.start();
+		}
+	}
+
+	@Override
+	public Object search(final int key) {
+		final BinarySearchTree t = shardFor(key)._tree;
+
+		return await(enqueue(key, new Callable<Object>() {
+			@Override
+			public Object call() {
+				return t.search(key);
+			}
+		}));
+	}
+
+	@Override
+	public BSTNode insert(final int key, final Object value)
+			throws OperationNotPermitted {
+		final BinarySearchTree t = shardFor(key)._tree;
+
+		return (BSTNode) awaitUpdate(enqueue(key, new Callable<Object>() {
+			@Override
+			public Object call() throws OperationNotPermitted {
+				return t.insert(key, value);
+			}
+		}));
+	}
+
+	@Override
+	public Object remove(final int key) throws OperationNotPermitted {
+		final BinarySearchTree t = shardFor(key)._tree;
+
+		return awaitUpdate(enqueue(key, new Callable<Object>() {
+			@Override
+			public Object call() throws OperationNotPermitted {
+				return t.remove(key);
+			}
+		}));
+	}
+
+	/**
+	 * A forest has no single root
+	 *
+	 * @return null
+	 */
+	@Override
+	public BSTNode getRoot() {
+		return null;
+	}
+
+	/**
+	 * Waits for all pending operations, then sums the stats of every shard
+	 */
+	@Override
+	public TreeStats getStats() {
+		drain();
+
+		TreeStats stats = new TreeStats();
+
+		for (Shard s : _shards) {
+			stats.add(s._tree.getStats());
+		}
+
+		return stats;
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Sharding
+	 */
+
+	/**
+	 * Queues a search on the owning shard without waiting for it. Blocks only
+	 * if that shard's queue is full.
+	 *
+	 * @param key
+	 *            the key to search for
+	 */
+	public void submitSearch(final int key) {
+		Shard s = shardFor(key);
+		final BinarySearchTree t = s._tree;
+
+		s.submit(new Runnable() {
+			@Override
+			public void run() {
+				t.search(key);
+			}
+		});
+	}
+
+	/**
+	 * Waits until every operation submitted so far has been applied. If any of
+	 * them failed, the first failure is rethrown here; each failure is
+	 * reported by one drain only.
+	 */
+	public void drain() {
+		FutureTask<?>[] barriers = new FutureTask<?>[_shards.length];
+
+		for (int i = 0; i < _shards.length; ++i) {
+			barriers[i] = new FutureTask<Object>(new Runnable() {
+				@Override
+				public void run() {
+					// nothing, all earlier operations have now run
+				}
+			}, null);
+
+			_shards[i].submit(barriers[i]);
+		}
+
+		for (FutureTask<?> b : barriers) {
+			await(b);
+		}
+
+		Throwable first = null;
+
+		for (Shard s : _shards) {
+			Throwable f = s.takeFailure();
+
+			if (first == null)
+				first = f;
+		}
+
+		if (first != null)
+			throw unchecked(first);
+	}
+
+	/**
+	 * Stops the worker threads. Pending operations are abandoned, and anyone
+	 * waiting on one gets a CancellationException.
+	 */
+	public void shutdown() {
+		if (_shards == null)
+			return;
+
+		for (Shard s : _shards) {
+			s.shutdown();
+		}
+
+		_shards = null;
+	}
+
+	/**
+	 * @return the number of shards in use
+	 */
+	public int getNumShards() {
+		return (_shards == null ? 0 : _shards.length);
+	}
+
+	private Shard shardFor(int key) {
+		// shards are few, so a linear scan beats a binary search
+		int i = 0;
+
+		while (i < _bounds.length && key >= _bounds[i]) {
+			++i;
+		}
+
+		return _shards[i];
+	}
+
+	private FutureTask<Object> enqueue(int key, Callable<Object> op) {
+		FutureTask<Object> f = new FutureTask<Object>(op);
+
+		shardFor(key).submit(f);
+
+		return f;
+	}
+
+	private static Object await(FutureTask<?> f) {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw unchecked(e.getCause());
+		}
+	}
+
+	private static Object awaitUpdate(FutureTask<?> f)
+			throws OperationNotPermitted {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OperationNotPermitted) {
+				throw (OperationNotPermitted) e.getCause();
+			}
+
+			throw unchecked(e.getCause());
+		}
+	}
+
+	private static RuntimeException unchecked(Throwable t) {
+		if (t instanceof Error) {
+			throw (Error) t;
+		} else if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		} else {
+			return new RuntimeException(t);
+		}
+	}
+
+	/**
+	 * Prints each shard's tree on the shard's own worker, after the operations
+	 * already queued there, so that no tree is read while it changes
+	 */
+	@Override
+	public String toString() {
+		FutureTask<?>[] parts = new FutureTask<?>[_shards.length];
+
+		for (int i = 0; i < _shards.length; ++i) {
+			final BinarySearchTree t = _shards[i]._tree;
+
+			parts[i] = new FutureTask<Object>(new Callable<Object>() {
+				@Override
+				public Object call() {
+					return t.toString();
+				}
+			});
+
+			_shards[i].submit(parts[i]);
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		for (FutureTask<?> p : parts) {
+			sb.append(await(p));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * A worker thread and the tree and queue that it owns
+	 */
+	private class Shard extends Thread {
+		private final BinarySearchTree _tree;
+		private final BlockingQueue<Runnable> _queue;
+
+		/**
+		 * The first failure seen by a fire-and-forget operation since the
+		 * last drain
+		 */
+		private volatile Throwable _failure = null;
+
+		private volatile boolean _stopped = false;
+
+		private Shard(int id, BinarySearchTree tree) {
+			super("shard-" + id);
+
+			_tree = tree;
+			_queue = new ArrayBlockingQueue<Runnable>(_queueCapacity);
+
+			setDaemon(true);
+		}
+
+		private void submit(Runnable op) {
+			try {
+				_queue.put(op);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+
+			// an operation that got in after shutdown would never run
+			if (_stopped)
+				cancelPending();
+		}
+
+		private void shutdown() {
+			_stopped = true;
+			interrupt();
+			cancelPending();
+		}
+
+		private void cancelPending() {
+			ArrayList<Runnable> pending = new ArrayList<Runnable>();
+			_queue.drainTo(pending);
+
+			for (Runnable op : pending) {
+				if (op instanceof FutureTask<?>)
+					((FutureTask<?>) op).cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!_stopped) {
+					Runnable op = _queue.take();
+
+					try {
+						op.run();
+					} catch (Throwable t) {
+						// the worker must outlive any operation
+						recordFailure(t);
+					}
+				}
+			} catch (InterruptedException e) {
+				// shut down
+			}
+		}
+
+		private void recordFailure(Throwable t) {
+			if (_failure == null)
+				_failure = t;
+		}
+
+		/**
+		 * @return the failure recorded since the last call, if any
+		 */
+		private Throwable takeFailure() {
+			Throwable f = _failure;
+			_failure = null;
+
+			return f;
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package tango;
 
 public class SplayTree extends BinarySearchTreeAdaptor implements
-		BinarySearchTree {
+		SplittableTree {
 
 	public SplayTree() {
 
@@ -81,6 +81,56 @@ public class SplayTree extends BinarySearchTreeAdaptor implements
 		}
 	}
 
+	/**
+	 * Splits this tree into two splay trees by splaying the closest node to
+	 * key up to the root and cutting off one of its subtrees. The nodes are
+	 * moved rather than copied, so this tree is left empty afterwards.
+	 * 
+	 * @param key
+	 *            the key to split at
+	 * @return two trees; the first holds every key less than the given key,
+	 *         the second every key greater than or equal to it
+	 */
+	@Override
+	public SplayTree[] split(int key) {
+		SplayTree lt = new SplayTree();
+		SplayTree rt = new SplayTree();
+
+		if (_root != null) {
+			BSTNode n = super.searchByKey(key);
+
+			splay(n);
+
+			if (n.key < key) {
+				// n and its left subtree are smaller than key
+				BSTNode r = n.right;
+
+				if (r != null) {
+					detach(r, n);
+					updateSubtreeSize(n);
+				}
+
+				lt._root = n;
+				rt._root = r;
+			} else {
+				// n and its right subtree are at least key
+				BSTNode l = n.left;
+
+				if (l != null) {
+					detach(l, n);
+					updateSubtreeSize(n);
+				}
+
+				lt._root = l;
+				rt._root = n;
+			}
+
+			_root = null;
+		}
+
+		return new SplayTree[] { lt, rt };
+	}
+
 	/*
 	 * BinarySearchTreeAdaptor Implementation
 	 */
@@ -108,7 +158,7 @@ public class SplayTree extends BinarySearchTreeAdaptor implements
 		} else {
 			/* build subtrees */
 			BSTNode l = createPerfectSubtree(levels, depth + 1, nextId);
-			nextId += Math.pow(2, (levels - depth)) - 1;
+			nextId += (1 << (levels - depth)) - 1;
 
 			BSTNode p = createNode(nextId, new Integer(nextId));
 			++nextId;
@@ -0,0 +1,22 @@
+package tango;
+
+/**
+ * A Binary Search Tree that can be split about a key into two trees of its own
+ * type
+ * 
+ * @author Gregory Bint
+ * 
+ */
+public interface SplittableTree extends BinarySearchTree {
+
+	/**
+	 * Splits this tree into two trees of the same type. The nodes are moved
+	 * rather than copied, so this tree is left empty afterwards.
+	 * 
+	 * @param key
+	 *            the key to split at
+	 * @return two trees; the first holds every key less than the given key,
+	 *         the second every key greater than or equal to it
+	 */
+	public BinarySearchTree[] split(int key);
+}
@@ -26,6 +26,14 @@ public class TangoNode extends BSTNode {
 	 */
 	public int maxDepth;
 
+	/**
+	 * A change in depth not yet applied to the aux tree rooted at this node,
+	 * nor to the aux trees below it. Only marked nodes carry one. Split leaves
+	 * these behind so that it need not walk every aux tree whose depths
+	 * change; a depth shift never exceeds the height of the tree.
+	 */
+	public byte depthShift;
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * Construction
@@ -0,0 +1,78 @@
+package tango;
+
+/**
+ * Drives the Tango primitives of a TangoTree one at a time, for benchmarks and
+ * tests that prepare the aux trees themselves. The primitives check no more
+ * than they do inside a search, so the caller must hand them aux trees in the
+ * shape they expect.
+ * 
+ * @author Gregory Bint
+ * 
+ */
+public final class TangoPrimitives {
+
+	private TangoPrimitives() {
+	}
+
+	/**
+	 * Finds the node holding key, without changing any preferred paths
+	 * 
+	 * @param t
+	 *            the tree to search
+	 * @param key
+	 *            the key to find
+	 * @return the node, or null if key is not in the tree
+	 */
+	public static TangoNode findNode(TangoTree t, int key) {
+		return t.findNode(key);
+	}
+
+	/**
+	 * @param t
+	 *            the tree holding n
+	 * @param n
+	 *            any node of the tree
+	 * @return the root of the aux tree holding n
+	 */
+	public static TangoNode findAuxRoot(TangoTree t, TangoNode n) {
+		return t.findAuxRoot(n);
+	}
+
+	/**
+	 * Cuts the nodes deeper than cutDepth out of the aux tree at vRoot, into
+	 * an aux tree of their own
+	 * 
+	 * @return the root of the aux tree left at vRoot's place
+	 */
+	public static TangoNode cut(TangoTree t, TangoNode vRoot, int cutDepth) {
+		return t.auxCut(vRoot, cutDepth);
+	}
+
+	/**
+	 * Joins the aux tree at n, cut off below cutDepth, back onto topPath
+	 * 
+	 * @return the root of the joined aux tree
+	 */
+	public static TangoNode join(TangoTree t, TangoNode topPath, TangoNode n,
+			int cutDepth) {
+		return t.auxJoin(topPath, n, cutDepth);
+	}
+
+	/**
+	 * Brings n up to the root of the aux tree at vRoot
+	 * 
+	 * @return n
+	 */
+	public static TangoNode split(TangoTree t, TangoNode n, TangoNode vRoot) {
+		return t.auxSplit(n, vRoot);
+	}
+
+	/**
+	 * Puts the aux tree split around n back together
+	 * 
+	 * @return the root of the merged aux tree
+	 */
+	public static TangoNode merge(TangoTree t, TangoNode n) {
+		return t.auxMerge(n);
+	}
+}
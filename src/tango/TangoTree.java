@@ -73,6 +73,9 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 			 * top path to the previous aux tree.
 			 */
 			if (isMarked(n)) {
+				// the depths at n must be up to date before they are compared
+				applyDepthShift(n);
+
 				// perform cut and join; move n to root of modified aux tree
 				n = tangoCutAndJoin(n);
 			}
@@ -94,6 +97,7 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		p = findMarkedPredecessor(r, n.key);
 
 		if (p != null) {
+			applyDepthShift(p);
 			tangoJoin(r, p, n.depth);
 		}
 
@@ -102,7 +106,8 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		 * or some leaf if the desired key was not present in the tree
 		 */
 		if (isNilLeaf(n)) {
-			return n.parent.value;
+			// an empty tree has only a nil at the root
+			return (n.parent == null ? null : n.parent.value);
 		} else {
 			return n.value;
 		}
@@ -606,7 +611,7 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		} else {
 			/* build subtrees */
 			TangoNode l = createPerfectSubtree(levels, depth + 1, nextId);
-			nextId += Math.pow(2, (levels - depth)) - 1;
+			nextId += (1 << (levels - depth)) - 1;
 
 			TangoNode p = createNode(nextId, new Integer(nextId));
 			++nextId;
@@ -630,6 +635,34 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		}
 	}
 
+	@Override
+	protected BSTNode createResetNil() {
+		return createNil();
+	}
+
+	@Override
+	protected void resetNode(BSTNode n, int depth) {
+		TangoNode t = (TangoNode) n;
+
+		// every node is marked, so each is an aux tree of its own
+		t.depth = depth;
+		t.marked = true;
+		t.minDepth = depth;
+		t.maxDepth = depth;
+		t.depthShift = 0;
+	}
+
+	@Override
+	protected void resetNil(BSTNode nil, int depth) {
+		TangoNode t = (TangoNode) nil;
+
+		t.depth = depth;
+		t.marked = false;
+		t.minDepth = 0;
+		t.maxDepth = 0;
+		t.depthShift = 0;
+	}
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * Depth Maintenance
@@ -716,6 +749,46 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		}
 	}
 
+	/**
+	 * Applies the depth shift pending at the root of an aux tree to every node
+	 * of that aux tree, and passes it on to the roots of the aux trees below
+	 * it. A search calls this as it enters each aux tree, so the depths of the
+	 * aux trees it works on are always up to date.
+	 * 
+	 * @param m
+	 *            the root of an aux tree
+	 */
+	protected void applyDepthShift(TangoNode m) {
+		int shift = m.depthShift;
+
+		if (shift == 0)
+			return;
+
+		m.depthShift = 0;
+		shiftAuxSubtree(m, shift);
+	}
+
+	private void shiftAuxSubtree(TangoNode x, int shift) {
+		x.depth += shift;
+		x.minDepth += shift;
+		x.maxDepth += shift;
+
+		shiftAuxChild((TangoNode) x.left, shift);
+		shiftAuxChild((TangoNode) x.right, shift);
+	}
+
+	private void shiftAuxChild(TangoNode c, int shift) {
+		if (c == null) {
+			return;
+		} else if (isNilLeaf(c)) {
+			c.depth += shift;
+		} else if (isMarked(c)) {
+			c.depthShift = (byte) (c.depthShift + shift);
+		} else {
+			shiftAuxSubtree(c, shift);
+		}
+	}
+
 	/*
 	 * -----------------------------------------------------------------------
 	 * Tree Inspection
@@ -817,6 +890,8 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 	protected void unmarkNode(TangoNode n) {
 		assert (n != null);
 
+		// its aux tree joins its parent's, which has no pending shift
+		applyDepthShift(n);
 		n.marked = false;
 	}
 
@@ -910,6 +985,83 @@ public abstract class TangoTree extends BinarySearchTreeAdaptor implements
 		unmarkNode((TangoNode) n);
 	}
 
+	/*
+	 * -----------------------------------------------------------------------
+	 * Test Hooks
+	 * 
+	 * The Tango primitives, one at a time, for benchmarks and tests to drive on
+	 * aux trees they have prepared. They check no more than the primitives
+	 * themselves do, and are reached from outside the package only through
+	 * TangoPrimitives.
+	 */
+
+	/**
+	 * Finds the node holding key, without changing any preferred paths
+	 * 
+	 * @param key
+	 *            the key to find
+	 * @return the node, or null if key is not in the tree
+	 */
+	TangoNode findNode(int key) {
+		TangoNode n = (TangoNode) _root;
+
+		while (!isNilLeaf(n)) {
+			if (isMarked(n))
+				applyDepthShift(n);
+
+			if (key < n.key) {
+				n = (TangoNode) n.left;
+			} else if (key > n.key) {
+				n = (TangoNode) n.right;
+			} else {
+				return n;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param n
+	 *            any node of the tree
+	 * @return the root of the aux tree holding n
+	 */
+	TangoNode findAuxRoot(TangoNode n) {
+		while (!isMarked(n)) {
+			n = (TangoNode) n.parent;
+		}
+
+		return n;
+	}
+
+	/**
+	 * @see #tangoCut(TangoNode, int)
+	 */
+	TangoNode auxCut(TangoNode vRoot, int cutDepth) {
+		return tangoCut(vRoot, cutDepth);
+	}
+
+	/**
+	 * @see #tangoJoin(TangoNode, TangoNode, int)
+	 */
+	TangoNode auxJoin(TangoNode topPath, TangoNode n, int cutDepth) {
+		return tangoJoin(topPath, n, cutDepth);
+	}
+
+	/**
+	 * @see #tangoSplit(TangoNode, BSTNode)
+	 */
+	TangoNode auxSplit(TangoNode n, TangoNode vRoot) {
+		return tangoSplit(n, vRoot);
+	}
+
+	/**
+	 * @see #tangoMerge(TangoNode)
+	 */
+	TangoNode auxMerge(TangoNode n) {
+		return tangoMerge(n);
+	}
+
 	/*
 	 * Debugging helpers
 	 */
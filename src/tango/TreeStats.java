@@ -3,6 +3,10 @@ package tango;
 /**
  * A simple class for tracking some statistics about a tree's life time.
  * 
+ * The counters are plain fields, which is as cheap as counting gets but only
+ * correct while one thread at a time updates them. See ConcurrentTreeStats for
+ * counts shared between threads.
+ * 
  * @author Gregory Bint
  * 
  */
@@ -12,13 +16,19 @@ public class TreeStats {
 	private long _numOtherTraversals;
 
 	public TreeStats() {
-		reset();
+		// all counts start at zero
 	}
 
+	/**
+	 * Takes a snapshot of the counts of any TreeStats
+	 * 
+	 * @param src
+	 *            the stats to copy
+	 */
 	public TreeStats(TreeStats src) {
-		_numRotations = src._numRotations;
-		_numTraversals = src._numTraversals;
-		_numOtherTraversals = src._numOtherTraversals;
+		_numRotations = src.getRotations();
+		_numTraversals = src.getTraversals();
+		_numOtherTraversals = src.getOtherTraversals();
 	}
 
 	public long getRotations() {
@@ -45,6 +55,18 @@ public class TreeStats {
 		++_numOtherTraversals;
 	}
 
+	/**
+	 * Accumulates the counts of another TreeStats into this one
+	 * 
+	 * @param other
+	 *            the stats to add
+	 */
+	public void add(TreeStats other) {
+		_numRotations += other.getRotations();
+		_numTraversals += other.getTraversals();
+		_numOtherTraversals += other.getOtherTraversals();
+	}
+
 	public void reset() {
 		_numRotations = 0;
 		_numTraversals = 0;
@@ -53,7 +75,7 @@ public class TreeStats {
 
 	@Override
 	public String toString() {
-		return "TreeStats: rot=" + _numRotations + ",trav=" + _numTraversals
-				+ ",otrav=" + _numOtherTraversals;
+		return "TreeStats: rot=" + getRotations() + ",trav=" + getTraversals()
+				+ ",otrav=" + getOtherTraversals();
 	}
 }
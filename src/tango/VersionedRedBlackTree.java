@@ -0,0 +1,126 @@
+package tango;
+
+/**
+ * A BinarySearchTree over the versions of a PersistentRedBlackTree. Writers
+ * derive a new version from the current one and publish it, one at a time;
+ * readers search whichever version is current when they start, without
+ * locking and without ever seeing a half-made change.
+ *
+ * The versions are made of immutable PersistentRedBlackNodes rather than
+ * BSTNodes, so getRoot and insert hand out detached BSTNode copies of them.
+ * Changing a copy does not change the tree.
+ *
+ * @author Gregory Bint
+ *
+ */
+public class VersionedRedBlackTree implements BinarySearchTree {
+
+	private volatile PersistentRedBlackTree _current = PersistentRedBlackTree
+			.empty();
+
+	/**
+	 * Readers count their traversals concurrently
+	 */
+	private final TreeStats _stats = new ConcurrentTreeStats();
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * BinarySearchTree Implementation
+	 */
+
+	@Override
+	public synchronized void initializePerfectTree(int levels) {
+		_current = PersistentRedBlackTree.createPerfectTree(levels);
+		_stats.reset();
+	}
+
+	/**
+	 * Publishes a new version holding the key
+	 *
+	 * @return a detached node holding the key and value as stored in the new
+	 *         version
+	 */
+	@Override
+	public synchronized BSTNode insert(int key, Object value) {
+		_current = _current.insert(key, value);
+
+		return new BSTNode(key, _current.search(key));
+	}
+
+	@Override
+	public synchronized Object remove(int key) {
+		Object value = _current.search(key);
+
+		_current = _current.remove(key);
+
+		return value;
+	}
+
+	/**
+	 * Searches the current version. As with BinarySearchTreeAdaptor, the value
+	 * of the last node seen is returned.
+	 */
+	@Override
+	public Object search(int key) {
+		PersistentRedBlackNode n = _current.getRoot();
+		PersistentRedBlackNode p = null;
+
+		while (n != null) {
+			p = n;
+
+			_stats.incTraversals();
+
+			if (key < n.key) {
+				n = n.left;
+			} else if (key > n.key) {
+				n = n.right;
+			} else {
+				break;
+			}
+		}
+
+		return (p == null ? null : p.value);
+	}
+
+	/**
+	 * Copies the current version into BSTNodes. This is linear in the size of
+	 * the tree; use getVersion to read a version without copying it.
+	 *
+	 * @return the root of the copy, or null if the tree is empty
+	 */
+	@Override
+	public BSTNode getRoot() {
+		return copySubtree(_current.getRoot(), null);
+	}
+
+	@Override
+	public TreeStats getStats() {
+		return new TreeStats(_stats);
+	}
+
+	/*
+	 * -----------------------------------------------------------------------
+	 * Versions
+	 */
+
+	/**
+	 * @return the current version, which later updates leave unchanged
+	 */
+	public PersistentRedBlackTree getVersion() {
+		return _current;
+	}
+
+	private static BSTNode copySubtree(PersistentRedBlackNode n, BSTNode parent) {
+		if (n == null)
+			return null;
+
+		BSTNode c = new BSTNode(n.key, n.value);
+
+		c.parent = parent;
+		c.left = copySubtree(n.left, c);
+		c.right = copySubtree(n.right, c);
+		c.size = n.size;
+
+		return c;
+	}
+}
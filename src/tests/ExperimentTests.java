@@ -0,0 +1,62 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import console.Experiment;
+import console.ExperimentResult;
+import console.SequenceParameters;
+import console.SequenceType;
+import console.TreeType;
+import console.WarmupPolicy;
+
+public class ExperimentTests {
+
+	private static final int LEVELS = 8;
+	private static final int REPS = 2;
+
+	@Test
+	public void testEveryTypeRunsTheSequence() {
+		TreeType[] types = { TreeType.SPLAY, TreeType.RBTANGO, TreeType.BASIC };
+		int seqSize = column("seqsize");
+		int finger = column("finger");
+		int wilber = column("wilber");
+
+		ExperimentResult[] results = run(types);
+
+		assertEquals(types.length, results.length);
+
+		for (int i = 0; i < types.length; ++i) {
+			Object[] v = results[i].getValues();
+
+			assertEquals(types[i].toString(), v[column("treetype")]);
+			assertEquals((long) REPS * ((1 << LEVELS) - 1), v[seqSize]);
+			assertEquals(results[0].getValues()[finger], v[finger]);
+			assertEquals(results[0].getValues()[wilber], v[wilber]);
+		}
+
+		// running alongside other types changes nothing a tree counts
+		for (int i = 0; i < types.length; ++i) {
+			ExperimentResult alone = run(new TreeType[] { types[i] })[0];
+
+			assertEquals(alone.getStats().toString(), results[i].getStats()
+					.toString());
+		}
+	}
+
+	private static ExperimentResult[] run(TreeType[] types) {
+		WarmupPolicy warmup = new WarmupPolicy();
+		warmup.warmupIterations = 2;
+		warmup.maxWarmupIterations = 2;
+
+		return new Experiment(types, SequenceType.RANDOM, LEVELS, 0, REPS,
+				null, 1, 11, new SequenceParameters(), 4, warmup, false).call();
+	}
+
+	private static int column(String name) {
+		return Arrays.asList(ExperimentResult.getColumns()).indexOf(name);
+	}
+}
@@ -0,0 +1,105 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import tango.FlatCombiningTree;
+import tango.OperationNotPermitted;
+import tango.RedBlackTango;
+import tango.SplayTree;
+
+public class FlatCombiningTests {
+
+	@Test
+	public void testSingleThread() throws OperationNotPermitted {
+		FlatCombiningTree t = new FlatCombiningTree(new SplayTree());
+		t.initializePerfectTree(5);
+
+		for (int i = 1; i < 32; ++i) {
+			assertEquals(i, t.search(i));
+		}
+
+		assertEquals(7, t.remove(7));
+		t.insert(7, "7");
+		assertEquals("7", t.search(7));
+	}
+
+	@Test(expected = OperationNotPermitted.class)
+	public void testFailurePassedBack() throws OperationNotPermitted {
+		FlatCombiningTree t = new FlatCombiningTree(new RedBlackTango());
+		t.initializePerfectTree(4);
+
+		t.insert(100, "100");
+	}
+
+	@Test
+	public void testErrorPassedBackOnce() {
+		final int[] calls = new int[1];
+
+		FlatCombiningTree t = new FlatCombiningTree(new SplayTree() {
+			@Override
+			public Object search(int key) {
+				++calls[0];
+				throw new StackOverflowError();
+			}
+		});
+
+		try {
+			t.search(1);
+			fail();
+		} catch (StackOverflowError e) {
+			// expected
+		}
+
+		// the failed search must not be applied again by the next combiner
+		try {
+			t.search(2);
+			fail();
+		} catch (StackOverflowError e) {
+			// expected
+		}
+
+		assertEquals(2, calls[0]);
+	}
+
+	@Test
+	public void testManyThreads() throws Exception {
+		final FlatCombiningTree t = new FlatCombiningTree(new RedBlackTango());
+		t.initializePerfectTree(9);
+
+		final int n = 511;
+		final int searches = 5000;
+		final Throwable[] failure = new Throwable[1];
+		Thread[] workers = new Thread[4];
+
+		for (int w = 0; w < workers.length; ++w) {
+			final Random rnd = new Random(w);
+
+			workers[w] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < searches; ++i) {
+							int key = rnd.nextInt(n) + 1;
+							assertEquals(key, t.search(key));
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			});
+
+			workers[w].start();
+		}
+
+		for (Thread w : workers) {
+			w.join();
+		}
+
+		assertNull(failure[0]);
+		assertTrue(t.getStats().getTraversals() >= workers.length * searches);
+	}
+}
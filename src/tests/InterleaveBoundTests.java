@@ -0,0 +1,88 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import console.InterleaveBound;
+
+public class InterleaveBoundTests {
+
+	@Test
+	public void testSmallTree() {
+		// keys 1 .. 7, rooted at 4 with children 2 and 6
+		InterleaveBound b = new InterleaveBound(3);
+
+		b.access(1); // 4:left, 2:left
+		assertEquals(0, b.getBound());
+
+		b.access(3); // 4:left, 2:right
+		assertEquals(1, b.getBound());
+
+		b.access(4); // 4:left, stops at the root
+		assertEquals(1, b.getBound());
+
+		b.access(7); // 4:right, 6:right
+		assertEquals(2, b.getBound());
+
+		b.access(2); // 4:left, 2:left (2 is in its own left region)
+		assertEquals(4, b.getBound());
+
+		b.access(100); // not a key
+		assertEquals(4, b.getBound());
+
+		// a reset bound starts over, with no node seen
+		b.reset();
+		assertEquals(0, b.getBound());
+
+		b.access(1);
+		b.access(3);
+		assertEquals(1, b.getBound());
+	}
+
+	@Test
+	public void testAgainstBruteForce() {
+		int levels = 7;
+		int n = (1 << levels) - 1;
+		Random rnd = new Random(41);
+
+		InterleaveBound b = new InterleaveBound(levels);
+		int[] seq = new int[2000];
+
+		for (int i = 0; i < seq.length; ++i) {
+			seq[i] = rnd.nextInt(n) + 1;
+			b.access(seq[i]);
+		}
+
+		assertEquals(bruteForce(seq, 1, n), b.getBound());
+	}
+
+	/**
+	 * Sums the interleaves of every node of the perfect tree over [lo, hi],
+	 * by scanning the whole sequence once per node
+	 */
+	private static long bruteForce(int[] seq, int lo, int hi) {
+		if (lo > hi)
+			return 0;
+
+		int y = (lo + hi) / 2;
+		long count = 0;
+		int last = 0;
+
+		for (int key : seq) {
+			if (key < lo || key > hi)
+				continue;
+
+			int side = (key <= y ? 1 : 2);
+
+			if (last != 0 && side != last)
+				++count;
+
+			last = side;
+		}
+
+		return count + bruteForce(seq, lo, y - 1) + bruteForce(seq, y + 1, hi);
+	}
+}
@@ -0,0 +1,55 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import console.LatencyHistogram;
+
+public class LatencyHistogramTests {
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+
+		for (long v = 1; v <= 100000; ++v) {
+			h.record(v * 1000);
+		}
+
+		assertEquals(100000, h.getCount());
+		assertEquals(100000000, h.getMax());
+
+		// within the 1/32 precision of the buckets
+		assertEquals(50000000, h.getPercentile(50), 50000000 / 32);
+		assertEquals(99000000, h.getPercentile(99), 99000000 / 32);
+		assertEquals(100000000, h.getPercentile(100));
+		assertEquals(50000500, h.getMean(), 1);
+	}
+
+	@Test
+	public void testSmallValuesExact() {
+		LatencyHistogram h = new LatencyHistogram();
+
+		h.record(3);
+		h.record(7);
+		h.record(-5);
+
+		assertEquals(0, h.getPercentile(0));
+		assertEquals(3, h.getPercentile(50));
+		assertEquals(7, h.getPercentile(100));
+	}
+
+	@Test
+	public void testAdd() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+
+		a.record(10);
+		b.record(1000000);
+
+		a.add(b);
+
+		assertEquals(2, a.getCount());
+		assertEquals(1000000, a.getMax());
+	}
+}
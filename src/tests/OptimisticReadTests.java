@@ -0,0 +1,86 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import tango.BasicBST;
+import tango.OperationNotPermitted;
+import tango.OptimisticReadTree;
+import tango.RedBlackTree;
+import tango.SplayTree;
+
+public class OptimisticReadTests {
+
+	@Test
+	public void testSearch() throws OperationNotPermitted {
+		OptimisticReadTree t = new OptimisticReadTree(new BasicBST());
+		t.initializePerfectTree(6);
+
+		// the root is found in one step, and counted once
+		assertEquals(32, t.search(32));
+		assertEquals(1, t.getStats().getTraversals());
+
+		for (int i = 1; i < 64; ++i) {
+			assertEquals(i, t.search(i));
+		}
+
+		t.remove(10);
+		t.insert(10, "10");
+		assertEquals("10", t.search(10));
+
+		// every search makes at least one traversal, counted per thread
+		assertTrue(t.getStats().getTraversals() >= 64);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSelfAdjustingRejected() {
+		new OptimisticReadTree(new SplayTree());
+	}
+
+	@Test
+	public void testReadersDuringWrites() throws Exception {
+		RedBlackTree rb = new RedBlackTree();
+		final OptimisticReadTree t = new OptimisticReadTree(rb);
+		t.initializePerfectTree(10);
+
+		final int n = 1023;
+		final Throwable[] failure = new Throwable[1];
+		Thread[] readers = new Thread[3];
+
+		for (int r = 0; r < readers.length; ++r) {
+			final Random rnd = new Random(r);
+
+			readers[r] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// odd keys are never written, so are always found
+						for (int i = 0; i < 20000; ++i) {
+							int key = 2 * rnd.nextInt(n / 2) + 1;
+							assertEquals(key, t.search(key));
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			});
+
+			readers[r].start();
+		}
+
+		for (int i = 0; i < 2000; ++i) {
+			int key = n + 1 + 2 * i;
+			t.insert(key, Integer.valueOf(key));
+		}
+
+		for (Thread r : readers) {
+			r.join();
+		}
+
+		assertNull(failure[0]);
+		RedBlackTests.validateTree(rb);
+	}
+}
@@ -0,0 +1,194 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import console.TreeType;
+import tango.BSTNode;
+import tango.PersistentRedBlackNode;
+import tango.PersistentRedBlackTree;
+import tango.RBColor;
+import tango.VersionedRedBlackTree;
+
+public class PersistentRedBlackTests {
+
+	@Test
+	public void testInsertKeepsOldVersion() {
+		PersistentRedBlackTree t0 = PersistentRedBlackTree.empty();
+		PersistentRedBlackTree t1 = t0.insert(4, "4");
+		PersistentRedBlackTree t2 = t1.insert(2, "2");
+		PersistentRedBlackTree t3 = t2.insert(4, "four");
+
+		assertEquals(0, t0.size());
+		assertNull(t0.search(4));
+
+		assertEquals(1, t1.size());
+		assertEquals("4", t1.search(4));
+		assertNull(t1.search(2));
+
+		assertEquals(2, t2.size());
+		assertEquals("4", t2.search(4));
+		assertEquals("four", t3.search(4));
+
+		validateTree(t1);
+		validateTree(t2);
+		validateTree(t3);
+	}
+
+	@Test
+	public void testRemoveKeepsOldVersion() {
+		PersistentRedBlackTree t = PersistentRedBlackTree.createPerfectTree(5);
+		validateTree(t);
+
+		PersistentRedBlackTree r = t.remove(16);
+
+		assertEquals(31, t.size());
+		assertEquals(16, t.search(16));
+
+		assertEquals(30, r.size());
+		assertNull(r.search(16));
+
+		// absent keys leave the version as it was
+		assertSame(r, r.remove(16));
+
+		validateTree(r);
+	}
+
+	@Test
+	public void testPathCopying() {
+		PersistentRedBlackTree t = PersistentRedBlackTree.createPerfectTree(10);
+		PersistentRedBlackTree u = t.insert(2000, "2000");
+
+		// the subtree away from the insertion point is shared
+		assertSame(t.getRoot().left, u.getRoot().left);
+	}
+
+	@Test
+	public void testRandomHistory() {
+		Random rnd = new Random(27);
+		int n = 3000;
+
+		PersistentRedBlackTree[] versions = new PersistentRedBlackTree[n + 1];
+		List<TreeMap<Integer, Integer>> expected = new ArrayList<TreeMap<Integer, Integer>>(
+				n + 1);
+
+		versions[0] = PersistentRedBlackTree.empty();
+		expected.add(new TreeMap<Integer, Integer>());
+
+		for (int i = 1; i <= n; ++i) {
+			int key = rnd.nextInt(500);
+
+			expected.add(new TreeMap<Integer, Integer>(expected.get(i - 1)));
+
+			if (rnd.nextInt(3) == 0) {
+				versions[i] = versions[i - 1].remove(key);
+				expected.get(i).remove(key);
+			} else {
+				versions[i] = versions[i - 1].insert(key, Integer.valueOf(i));
+				expected.get(i).put(key, i);
+			}
+		}
+
+		// every version, old or new, still holds exactly what it did
+		for (int i = 0; i <= n; i += 97) {
+			validateTree(versions[i]);
+			assertEquals(expected.get(i).size(), versions[i].size());
+
+			for (int key = 0; key < 500; ++key) {
+				assertEquals(expected.get(i).get(key), versions[i].search(key));
+			}
+		}
+	}
+
+	@Test
+	public void testVersionedTree() {
+		VersionedRedBlackTree t = (VersionedRedBlackTree) TreeType
+				.fromString("persistentrb").newTree();
+		t.initializePerfectTree(4);
+
+		// the root's key is found after a single traversal
+		assertEquals(8, t.search(8));
+		assertEquals(1, t.getStats().getTraversals());
+
+		// a missing key gives the value of the last node seen
+		assertEquals(15, t.search(16));
+		assertEquals(5, t.getStats().getTraversals());
+
+		PersistentRedBlackTree before = t.getVersion();
+
+		BSTNode inserted = t.insert(16, "16");
+		assertEquals(16, inserted.key);
+		assertEquals("16", inserted.value);
+
+		assertEquals(5, t.remove(5));
+		assertNull(t.remove(5));
+
+		assertEquals("16", t.search(16));
+		assertEquals(15, t.getVersion().size());
+		validateTree(t.getVersion());
+
+		// getRoot copies the current version, parent pointers and sizes included
+		BSTNode root = t.getRoot();
+		assertEquals(t.getVersion().getRoot().key, root.key);
+		assertEquals(15, root.size);
+		assertSame(root, root.left.parent);
+		assertSame(root, root.right.parent);
+
+		// earlier versions are unchanged by later updates
+		assertEquals(15, before.size());
+		assertEquals(5, before.search(5));
+		assertNull(before.search(16));
+	}
+
+	/*
+	 * Utilities
+	 */
+
+	public static void validateTree(PersistentRedBlackTree t) {
+		PersistentRedBlackNode r = t.getRoot();
+
+		if (r != null) {
+			assertEquals(RBColor.BLACK, r.color);
+
+			validateSubTree(r, Long.MIN_VALUE, Long.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * @return the black height of the subtree at n
+	 */
+	public static int validateSubTree(PersistentRedBlackNode n, long lo,
+			long hi) {
+		if (n == null)
+			return 1;
+
+		assertTrue(lo < n.key && n.key < hi);
+
+		if (n.color == RBColor.RED) {
+			assertFalse(isRed(n.left));
+			assertFalse(isRed(n.right));
+		}
+
+		int lh = validateSubTree(n.left, lo, n.key);
+		int rh = validateSubTree(n.right, n.key, hi);
+
+		assertEquals(lh, rh);
+		assertEquals(1 + size(n.left) + size(n.right), n.size);
+
+		return lh + (n.color == RBColor.BLACK ? 1 : 0);
+	}
+
+	private static boolean isRed(PersistentRedBlackNode n) {
+		return (n != null && n.color == RBColor.RED);
+	}
+
+	private static int size(PersistentRedBlackNode n) {
+		return (n == null ? 0 : n.size);
+	}
+}
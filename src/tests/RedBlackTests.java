@@ -153,8 +153,31 @@ public class RedBlackTests {
 	}
 
 	@Test
-	public void testDeleteMid() {
+	public void testDeleteMid() throws OperationNotPermitted {
 
+		RedBlackTree t;
+		int levels = 6;
+		int n = (1 << levels) - 1;
+
+		// take out the root first, and every other internal node before the
+		// leaves, so that most removals go through the predecessor
+		for (int first = 1; first <= n; ++first) {
+			t = new RedBlackTree();
+			t.initializePerfectTree(levels);
+
+			assertEquals(first, t.remove(first));
+			validateTree(t);
+
+			for (int i = n; i >= 1; --i) {
+				if (i == first)
+					continue;
+
+				assertEquals(i, t.remove(i));
+				validateTree(t);
+			}
+
+			assertTrue(isNilLeaf(t.getRoot()));
+		}
 	}
 
 	@Test
@@ -290,7 +313,11 @@ public class RedBlackTests {
 			assertEquals(RBColor.BLACK, p.color);
 		}
 
-		return l_blackHeight + (n.color == RBColor.BLACK ? 1 : 0);
+		// every node keeps its black height, for split and join
+		int blackHeight = l_blackHeight + (n.color == RBColor.BLACK ? 1 : 0);
+		assertEquals(blackHeight, n.blackHeight);
+
+		return blackHeight;
 	}
 
 }
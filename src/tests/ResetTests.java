@@ -0,0 +1,137 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import console.MemoryMeter;
+import tango.BSTNode;
+import tango.BasicBST;
+import tango.BinarySearchTreeAdaptor;
+import tango.OperationNotPermitted;
+import tango.RedBlackNode;
+import tango.RedBlackTango;
+import tango.RedBlackTree;
+import tango.SplayTree;
+import tango.TangoNode;
+import tango.UnbalancedTango;
+
+public class ResetTests {
+
+	private static final int LEVELS = 8;
+
+	@Test
+	public void testBasicReset() throws OperationNotPermitted {
+		checkReset(new BasicBST(), new BasicBST(), true);
+	}
+
+	@Test
+	public void testRedBlackReset() throws OperationNotPermitted {
+		checkReset(new RedBlackTree(), new RedBlackTree(), true);
+	}
+
+	@Test
+	public void testSplayReset() throws OperationNotPermitted {
+		checkReset(new SplayTree(), new SplayTree(), true);
+	}
+
+	@Test
+	public void testUnbalancedTangoReset() throws OperationNotPermitted {
+		checkReset(new UnbalancedTango(), new UnbalancedTango(), false);
+	}
+
+	@Test
+	public void testRedBlackTangoReset() throws OperationNotPermitted {
+		checkReset(new RedBlackTango(), new RedBlackTango(), false);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testResetImperfect() throws OperationNotPermitted {
+		RedBlackTree t = new RedBlackTree();
+		t.initializePerfectTree(LEVELS);
+		t.remove(1);
+
+		t.reset();
+	}
+
+	private static void checkReset(BinarySearchTreeAdaptor t,
+			BinarySearchTreeAdaptor fresh, boolean updates)
+			throws OperationNotPermitted {
+		int n = (1 << LEVELS) - 1;
+		Random rnd = new Random(42);
+
+		t.initializePerfectTree(LEVELS);
+		fresh.initializePerfectTree(LEVELS);
+
+		for (int rep = 0; rep < 3; ++rep) {
+			for (int i = 0; i < 4 * n; ++i) {
+				t.search(1 + rnd.nextInt(n));
+			}
+
+			// take some keys out and put them back, leaving the same keys
+			if (updates) {
+				for (int i = 0; i < n / 4; ++i) {
+					int key = 1 + rnd.nextInt(n);
+
+					if (t.remove(key) != null)
+						t.insert(key, Integer.valueOf(key));
+				}
+			}
+
+			t.reset();
+
+			assertSameTree(fresh.getRoot(), t.getRoot(), null);
+			assertEquals(0, t.getStats().getTraversals());
+			assertEquals(0, t.getStats().getRotations());
+		}
+
+		// resetting is done in place
+		if (MemoryMeter.isSupported()) {
+			t.reset();
+
+			long before = MemoryMeter.allocatedBytes();
+			t.reset();
+			long bytes = MemoryMeter.allocatedBytes() - before;
+
+			assertEquals(0, bytes);
+		}
+	}
+
+	private static void assertSameTree(BSTNode expected, BSTNode actual,
+			BSTNode parent) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+
+		assertNotNull(actual);
+		assertEquals(expected.key, actual.key);
+		assertEquals(expected.value, actual.value);
+		assertEquals(expected.size, actual.size);
+		assertSame(parent, actual.parent);
+
+		if (expected instanceof TangoNode) {
+			TangoNode e = (TangoNode) expected;
+			TangoNode a = (TangoNode) actual;
+
+			assertEquals(e.marked, a.marked);
+			assertEquals(e.depth, a.depth);
+			assertEquals(e.minDepth, a.minDepth);
+			assertEquals(e.maxDepth, a.maxDepth);
+			assertEquals(e.depthShift, a.depthShift);
+		}
+
+		if (expected instanceof RedBlackNode) {
+			RedBlackNode e = (RedBlackNode) expected;
+			RedBlackNode a = (RedBlackNode) actual;
+
+			assertEquals(e.color, a.color);
+			assertEquals(e.blackHeight, a.blackHeight);
+		}
+
+		assertSameTree(expected.left, actual.left, actual);
+		assertSameTree(expected.right, actual.right, actual);
+	}
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import tango.TreeStats;
+import console.ExperimentResult;
+import console.LatencyHistogram;
+import console.MemoryFootprint;
+import console.ResultsFormat;
+import console.ResultsSink;
+import console.SequenceParameters;
+import console.SequenceType;
+import console.TreeType;
+
+public class ResultsSinkTests {
+
+	@Test
+	public void testCsv() throws IOException {
+		List<String> lines = writeResults(ResultsFormat.CSV);
+
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0).startsWith("treetype,seqtype,levels,set,"));
+
+		String[] header = lines.get(0).split(",");
+		String[] row = lines.get(1).split(",", -1);
+
+		assertEquals(header.length, row.length);
+		assertEquals("rbTango", row[0]);
+		assertEquals("Permutation", row[1]);
+		assertEquals("", row[6]);
+		assertEquals("200", row[21]);
+
+		// the file name holds a comma, so it is quoted
+		assertTrue(lines.get(2).contains(",\"a,b.txt\","));
+	}
+
+	@Test
+	public void testJson() throws IOException {
+		List<String> lines = writeResults(ResultsFormat.JSON);
+
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).startsWith(
+				"{\"treetype\":\"rbTango\",\"seqtype\":\"Permutation\",\"levels\":5,\"set\":0,"));
+		assertTrue(lines.get(0).contains("\"seqfile\":null,"));
+		assertTrue(lines.get(0).contains("\"traversals\":200,"));
+		assertTrue(lines.get(1).contains("\"seqfile\":\"a,b.txt\","));
+		assertTrue(lines.get(1).contains(
+				"\"buildnanos\":1000,\"resetnanos\":null,\"runnanos\":2000,"));
+		assertTrue(lines.get(1).contains("\"latencymax\":300,\"latencymean\":200.0,"));
+		assertTrue(lines.get(1).contains("\"warmups\":0,\"warmupcv\":0.0,"));
+
+		// NaN is not JSON, so unmeasured figures are null
+		assertTrue(lines.get(1).endsWith(
+				"\"bytesperkey\":144.0,\"bytespersearch\":0.0,\"bytesperinsert\":null,\"bytesperremove\":8.0}"));
+	}
+
+	private static List<String> writeResults(ResultsFormat format)
+			throws IOException {
+		File f = File.createTempFile("results", "." + format);
+
+		try {
+			ResultsSink sink = new ResultsSink(f.getPath(), format);
+
+			sink.submit(result(SequenceType.PERMUTATION, 0, null));
+			sink.submit(result(SequenceType.FILE, 1, "a,b.txt"));
+			sink.close();
+
+			return Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+		} finally {
+			f.delete();
+		}
+	}
+
+	private static ExperimentResult result(SequenceType seqType, int set,
+			String seqFile) {
+		TreeStats stats = new TreeStats();
+
+		for (int i = 0; i < 200; ++i)
+			stats.incTraversals();
+
+		LatencyHistogram latency = new LatencyHistogram();
+		latency.record(100);
+		latency.record(200);
+		latency.record(300);
+
+		return new ExperimentResult(TreeType.RBTANGO, seqType, 5, set, 1, 1,
+				seqFile, 42, new SequenceParameters(), 31, stats, 100, 50,
+				1000, -1, 2000, latency, 0, 0.0, new MemoryFootprint(144,
+						0, Double.NaN, 8));
+	}
+}
@@ -0,0 +1,412 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import console.FingerBound;
+import console.SequenceConverter;
+import console.SequenceGenerator;
+import console.StepDistribution;
+import console.ZipfSampler;
+
+public class SequenceGeneratorTests {
+
+	@Test
+	public void testPermutation() {
+		// several chunks and buckets, with a ragged last chunk
+		int n = 3 * SequenceGenerator.CHUNK_SIZE + 12345;
+
+		int[] p = SequenceGenerator.permutation(n, 33);
+		int[] q = SequenceGenerator.permutation(n, 33);
+
+		assertArrayEquals(p, q);
+
+		int[] sorted = p.clone();
+		Arrays.sort(sorted);
+
+		for (int i = 0; i < n; ++i) {
+			assertEquals(i + 1, sorted[i]);
+		}
+
+		assertFalse(Arrays.equals(p, SequenceGenerator.permutation(n, 34)));
+	}
+
+	@Test
+	public void testSmallPermutation() {
+		int[] p = SequenceGenerator.permutation(31, 5);
+
+		int[] sorted = p.clone();
+		Arrays.sort(sorted);
+
+		for (int i = 0; i < 31; ++i) {
+			assertEquals(i + 1, sorted[i]);
+		}
+	}
+
+	@Test
+	public void testRandomStream() {
+		int n = SequenceGenerator.CHUNK_SIZE + 99;
+
+		int[] r = toArray(SequenceGenerator.randomStream(n, 34), n);
+
+		assertArrayEquals(r, toArray(SequenceGenerator.randomStream(n, 34), n));
+
+		for (int i = 0; i < n; ++i) {
+			assertTrue(1 <= r[i] && r[i] <= n);
+		}
+	}
+
+	@Test
+	public void testRandomStreamChunks() {
+		int n = 3 * SequenceGenerator.CHUNK_SIZE + 5;
+
+		int[] r = toArray(SequenceGenerator.randomStream(n, 35), n);
+
+		// chunks filled ahead in parallel hold the keys of each chunk's own
+		// generator, in order
+		for (int c = 0; c * SequenceGenerator.CHUNK_SIZE < n; ++c) {
+			SplittableRandom rnd = new SplittableRandom(
+					SequenceGenerator.deriveSeed(35, c));
+
+			int start = c * SequenceGenerator.CHUNK_SIZE;
+			int end = Math.min(n, start + SequenceGenerator.CHUNK_SIZE);
+
+			for (int i = start; i < end; ++i) {
+				assertEquals(rnd.nextInt(n) + 1, r[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testSquareRoot() {
+		int n = 63;
+
+		int[] seq = toArray(SequenceGenerator.squareRoot(n), n);
+
+		// strides of 7 from each of 1 .. 7, then nothing more
+		assertEquals(1, seq[0]);
+		assertEquals(8, seq[1]);
+		assertEquals(2, seq[9]);
+
+		Arrays.sort(seq);
+
+		for (int i = 0; i < n; ++i) {
+			assertEquals(i + 1, seq[i]);
+		}
+	}
+
+	@Test
+	public void testRandomWalk() {
+		int n = 1000;
+
+		for (StepDistribution d : new StepDistribution[] {
+				StepDistribution.UNIFORM, StepDistribution.GEOMETRIC,
+				StepDistribution.GAUSSIAN }) {
+			int[] seq = toArray(SequenceGenerator.randomWalk(n, d, 3, 39), n);
+
+			assertArrayEquals(seq,
+					toArray(SequenceGenerator.randomWalk(n, d, 3, 39), n));
+
+			long total = 0;
+
+			for (int i = 0; i < n; ++i) {
+				assertTrue(1 <= seq[i] && seq[i] <= n);
+
+				if (i > 0)
+					total += Math.abs(seq[i] - seq[i - 1]);
+			}
+
+			// the walk takes small steps on average
+			assertTrue(d + " steps are too large", total < 10 * n);
+		}
+	}
+
+	@Test
+	public void testSequentialJitter() {
+		int n = 5000;
+
+		int[] seq = toArray(SequenceGenerator.sequentialJitter(n, 3, 39), n);
+
+		for (int i = 1; i < n; ++i) {
+			int d = Math.abs(seq[i] - seq[i - 1]);
+
+			// apart from wrapping around, keys move on by 1 +- 6 at most
+			assertTrue(d <= 7 || d >= n - 7);
+		}
+	}
+
+	@Test
+	public void testLargeJitter() {
+		int n = 1000;
+
+		// clamped to n / 2 rather than overflowing the bound
+		int[] seq = toArray(
+				SequenceGenerator.sequentialJitter(n, Integer.MAX_VALUE, 40), n);
+
+		for (int i = 0; i < n; ++i) {
+			assertTrue(1 <= seq[i] && seq[i] <= n);
+		}
+	}
+
+	@Test
+	public void testFingerBound() {
+		FingerBound f = new FingerBound(7);
+
+		f.access(4); // d = 0
+		f.access(5); // d = 1
+		f.access(1); // d = 4
+
+		assertEquals(1 + 2 + 3, f.getBound());
+	}
+
+	@Test
+	public void testBitReversal() {
+		int[] seq = toArray(SequenceGenerator.bitReversal(3), 7);
+
+		assertArrayEquals(new int[] { 4, 2, 6, 1, 5, 3, 7 }, seq);
+
+		seq = toArray(SequenceGenerator.bitReversal(12), 4095);
+		Arrays.sort(seq);
+
+		for (int i = 0; i < seq.length; ++i) {
+			assertEquals(i + 1, seq[i]);
+		}
+	}
+
+	@Test
+	public void testLargestTree() {
+		// keys 1 .. 2^31 - 1, too many for a permutation array
+		int n = Integer.MAX_VALUE;
+		int levels = 31;
+
+		PrimitiveIterator.OfInt p = SequenceGenerator.permutationStream(n, 7);
+		HashSet<Integer> seen = new HashSet<Integer>();
+
+		for (int i = 0; i < 10000; ++i) {
+			int k = p.nextInt();
+
+			assertTrue(k >= 1);
+			assertTrue(seen.add(k));
+		}
+
+		PrimitiveIterator.OfInt b = SequenceGenerator.bitReversal(levels);
+
+		assertEquals(1 << (levels - 1), b.nextInt());
+		assertEquals(1 << (levels - 2), b.nextInt());
+
+		PrimitiveIterator.OfInt s = SequenceGenerator.squareRoot(n);
+		int sqr = (int) Math.sqrt(n);
+
+		assertEquals(1, s.nextInt());
+		assertEquals(1 + sqr, s.nextInt());
+
+		// the finger starts at the root, 2^30
+		FingerBound f = new FingerBound(n);
+
+		f.access(1 << (levels - 1)); // d = 0
+		f.access(n); // d = 2^30 - 1
+
+		assertEquals(1 + 31, f.getBound());
+	}
+
+	@Test
+	public void testInterleave() {
+		assertArrayEquals(new int[] { 1, 5, 3, 7, 1, 5 },
+				toArray(SequenceGenerator.interleave(3, 6), 6));
+
+		assertArrayEquals(new int[] { 1, 1 },
+				toArray(SequenceGenerator.interleave(1, 2), 2));
+	}
+
+	@Test
+	public void testZipfSampler() {
+		int n = 100;
+		int samples = 200000;
+		double exponent = 1.2;
+
+		ZipfSampler z = new ZipfSampler(n, exponent);
+		SplittableRandom rnd = new SplittableRandom(36);
+		int[] counts = new int[n + 1];
+
+		for (int i = 0; i < samples; ++i) {
+			++counts[z.sample(rnd)];
+		}
+
+		double norm = 0;
+		for (int k = 1; k <= n; ++k) {
+			norm += Math.pow(k, -exponent);
+		}
+
+		// the most popular ranks are sampled close to their probabilities
+		for (int k = 1; k <= 5; ++k) {
+			double expected = samples * Math.pow(k, -exponent) / norm;
+			assertEquals(expected, counts[k], 0.05 * expected);
+		}
+	}
+
+	@Test
+	public void testZipf() {
+		int n = 1023;
+
+		int[] seq = toArray(SequenceGenerator.zipf(n, 1.0, 36), n);
+		assertArrayEquals(seq, toArray(SequenceGenerator.zipf(n, 1.0, 36), n));
+
+		int[] counts = new int[n + 1];
+		int top = 0;
+
+		for (int k : seq) {
+			assertTrue(1 <= k && k <= n);
+
+			if (++counts[k] > counts[top])
+				top = k;
+		}
+
+		// the most popular key has about 1 / H(n) of the accesses
+		assertTrue(counts[top] > n / 10);
+	}
+
+	@Test
+	public void testHotspot() {
+		int n = 10000;
+
+		int[] seq = toArray(SequenceGenerator.hotspot(n, 0.8, 0.05, 36), n);
+
+		// find the hot range as the window of 500 keys with the most accesses
+		int[] counts = new int[n + 2];
+		for (int k : seq) {
+			assertTrue(1 <= k && k <= n);
+			++counts[k];
+		}
+
+		int best = 0;
+		for (int start = 1; start + 500 <= n + 1; ++start) {
+			int sum = 0;
+			for (int k = start; k < start + 500; ++k) {
+				sum += counts[k];
+			}
+			best = Math.max(best, sum);
+		}
+
+		assertEquals(0.8, best / (double) n, 0.02);
+	}
+
+	@Test
+	public void testWorkingSet() {
+		int n = 100000;
+
+		int[] seq = toArray(SequenceGenerator.workingSet(n, 100, 0.5, 37), n);
+
+		assertArrayEquals(seq,
+				toArray(SequenceGenerator.workingSet(n, 100, 0.5, 37), n));
+
+		// the window starts somewhere, and has moved i / 2 keys by access i
+		int origin = seq[0];
+
+		for (int i = 0; i < n; ++i) {
+			assertTrue(1 <= seq[i] && seq[i] <= n);
+
+			long offset = ((seq[i] - origin) - i / 2 + 2L * n) % n;
+			assertTrue(offset < 100 || offset > n - 100);
+		}
+	}
+
+	@Test
+	public void testPhases() {
+		int n = 100000;
+		int length = 1000;
+
+		int[] seq = toArray(SequenceGenerator.phases(n, 50, length, 3, 37), n);
+
+		ArrayList<Integer> regions = new ArrayList<Integer>();
+
+		for (int p = 0; p < n / length; ++p) {
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+
+			for (int i = p * length; i < (p + 1) * length; ++i) {
+				min = Math.min(min, seq[i]);
+				max = Math.max(max, seq[i]);
+			}
+
+			// every phase stays inside one region
+			assertTrue(max - min < 50);
+
+			boolean known = false;
+			for (int r : regions) {
+				known |= Math.abs(r - min) < 50;
+			}
+
+			if (!known)
+				regions.add(min);
+		}
+
+		// phases come back to the same few regions
+		assertTrue(regions.size() > 1);
+		assertTrue(regions.size() <= 3);
+	}
+
+	@Test
+	public void testBinaryFile() throws IOException {
+		File text = File.createTempFile("seq", ".txt");
+		File bin = File.createTempFile("seq", ".bin");
+
+		try {
+			PrintWriter w = new PrintWriter(text);
+			w.println("5");
+			w.println(" 3 ");
+			w.println("-1");
+			w.println("2147483647");
+			w.close();
+
+			assertEquals(4, SequenceConverter.convert(text.getPath(),
+					bin.getPath()));
+			assertEquals(16, bin.length());
+
+			assertArrayEquals(new int[] { 5, 3, -1, Integer.MAX_VALUE },
+					toArray(SequenceGenerator.fromBinaryFile(bin.getPath()), 4));
+		} finally {
+			text.delete();
+			bin.delete();
+		}
+	}
+
+	@Test
+	public void testDeriveSeed() {
+		assertEquals(SequenceGenerator.deriveSeed(1, 2),
+				SequenceGenerator.deriveSeed(1, 2));
+		assertTrue(SequenceGenerator.deriveSeed(1, 2) != SequenceGenerator
+				.deriveSeed(1, 3));
+		assertTrue(SequenceGenerator.deriveSeed(1, 2) != SequenceGenerator
+				.deriveSeed(2, 2));
+	}
+
+	/*
+	 * Utilities
+	 */
+
+	/**
+	 * Drains a stream that must hold exactly n keys
+	 */
+	private static int[] toArray(PrimitiveIterator.OfInt it, int n) {
+		int[] arr = new int[n];
+
+		for (int i = 0; i < n; ++i) {
+			assertTrue(it.hasNext());
+			arr[i] = it.nextInt();
+		}
+
+		assertFalse(it.hasNext());
+
+		return arr;
+	}
+}
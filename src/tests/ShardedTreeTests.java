@@ -0,0 +1,177 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import tango.OperationNotPermitted;
+import tango.RedBlackTango;
+import tango.RedBlackTree;
+import tango.ShardedTree;
+import tango.SplayTree;
+
+public class ShardedTreeTests {
+
+	@Test
+	public void testSearchAcrossShards() {
+		ShardedTree t = new ShardedTree(new RedBlackTango(), 4);
+		t.initializePerfectTree(8);
+
+		assertEquals(4, t.getNumShards());
+
+		for (int i = 1; i < 256; ++i) {
+			assertEquals(i, t.search(i));
+		}
+
+		t.shutdown();
+	}
+
+	@Test
+	public void testSubmittedSearches() {
+		ShardedTree t = new ShardedTree(new SplayTree(), 3, 16);
+		t.initializePerfectTree(10);
+
+		for (int i = 1; i < 1024; ++i) {
+			t.submitSearch(i);
+		}
+
+		// printed on the workers, behind the queued searches
+		assertFalse(t.toString().isEmpty());
+
+		t.drain();
+
+		// every search makes at least one traversal
+		assertTrue(t.getStats().getTraversals() >= 1023);
+
+		t.shutdown();
+	}
+
+	@Test
+	public void testUpdates() throws OperationNotPermitted {
+		ShardedTree t = new ShardedTree(new RedBlackTree(), 2);
+		t.initializePerfectTree(4);
+
+		assertEquals(3, t.remove(3));
+		assertNull(t.search(3));
+
+		t.insert(3, "3");
+		assertEquals("3", t.search(3));
+
+		t.shutdown();
+	}
+
+	@Test(expected = OperationNotPermitted.class)
+	public void testTangoInsert() throws OperationNotPermitted {
+		ShardedTree t = new ShardedTree(new RedBlackTango(), 2);
+		t.initializePerfectTree(4);
+
+		try {
+			t.insert(100, "100");
+		} finally {
+			t.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailuresReportedOnce() {
+		// a single shard is the prototype itself, so its search still fails
+		ShardedTree t = new ShardedTree(new RedBlackTree() {
+			@Override
+			public Object search(int key) {
+				if (key == 3)
+					throw new IllegalStateException("bad key");
+				if (key == 5)
+					throw new Error("worse key");
+
+				return super.search(key);
+			}
+		}, 1);
+		t.initializePerfectTree(4);
+
+		t.submitSearch(3);
+		t.submitSearch(4);
+
+		try {
+			t.drain();
+			fail("the failed search was not reported");
+		} catch (IllegalStateException e) {
+			assertEquals("bad key", e.getMessage());
+		}
+
+		// the next batch starts clean
+		t.submitSearch(4);
+		t.drain();
+
+		// an Error does not take the worker down with it
+		t.submitSearch(5);
+
+		try {
+			t.drain();
+			fail("the failed search was not reported");
+		} catch (Error e) {
+			assertEquals("worse key", e.getMessage());
+		}
+
+		assertEquals(6, t.search(6));
+
+		t.shutdown();
+	}
+
+	@Test
+	public void testShutdownCancelsPending() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final ShardedTree t = new ShardedTree(new RedBlackTree() {
+			@Override
+			public Object search(int key) {
+				if (key == 7) {
+					started.countDown();
+
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						// shut down while busy
+					}
+				}
+
+				return super.search(key);
+			}
+		}, 1, 4);
+		t.initializePerfectTree(4);
+
+		// keeps the worker busy, so that the next search stays queued
+		t.submitSearch(7);
+		started.await();
+
+		final Throwable[] thrown = new Throwable[1];
+
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					t.search(8);
+				} catch (Throwable e) {
+					thrown[0] = e;
+				}
+			}
+		};
+
+		waiter.start();
+
+		while (waiter.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+
+		t.shutdown();
+		release.countDown();
+
+		waiter.join(10000);
+
+		assertFalse(waiter.isAlive());
+		assertTrue(thrown[0] instanceof CancellationException);
+	}
+}
@@ -0,0 +1,211 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import tango.BinarySearchTree;
+import tango.OperationNotPermitted;
+import tango.RedBlackTango;
+import tango.RedBlackTree;
+import tango.SplayTree;
+
+public class SplitTests {
+
+	@Test
+	public void testRedBlackSplit() throws OperationNotPermitted {
+		int n = 200;
+
+		for (int key = 0; key <= n + 1; key += 7) {
+			RedBlackTree t = new RedBlackTree();
+
+			for (int i = 1; i <= n; ++i) {
+				t.insert(i, Integer.valueOf(i));
+			}
+
+			RedBlackTree[] parts = t.split(key);
+
+			RedBlackTests.validateTree(parts[0]);
+			RedBlackTests.validateTree(parts[1]);
+			assertTrue(RedBlackTests.isNilLeaf(t.getRoot()));
+
+			checkSplit(parts[0], parts[1], key, 1, n);
+		}
+	}
+
+	@Test
+	public void testRedBlackSplitPerfect() throws OperationNotPermitted {
+		RedBlackTree t = new RedBlackTree();
+		t.initializePerfectTree(6);
+
+		RedBlackTree[] parts = t.split(20);
+
+		RedBlackTests.validateTree(parts[0]);
+		RedBlackTests.validateTree(parts[1]);
+
+		checkSplit(parts[0], parts[1], 20, 1, 63);
+
+		// the halves are ordinary trees, and can be split again
+		RedBlackTree[] more = parts[1].split(41);
+
+		RedBlackTests.validateTree(more[0]);
+		RedBlackTests.validateTree(more[1]);
+
+		checkSplit(more[0], more[1], 41, 20, 63);
+
+		// black heights below the root must still be usable by insert
+		for (int i = 64; i < 128; ++i) {
+			more[1].insert(i, Integer.valueOf(i));
+			RedBlackTests.validateTree(more[1]);
+		}
+	}
+
+	@Test
+	public void testRedBlackSplitAfterRemovals() throws OperationNotPermitted {
+		int levels = 7;
+		int n = (1 << levels) - 1;
+		Random rnd = new Random(45);
+
+		for (int key = 1; key <= n + 1; key += 9) {
+			RedBlackTree t = new RedBlackTree();
+			t.initializePerfectTree(levels);
+
+			// removals go through the predecessor and every delete fix up
+			boolean[] removed = new boolean[n + 1];
+
+			for (int i = 0; i < n / 2; ++i) {
+				int k = rnd.nextInt(n) + 1;
+
+				if (!removed[k]) {
+					assertEquals(k, t.remove(k));
+					removed[k] = true;
+				}
+			}
+
+			RedBlackTests.validateTree(t);
+
+			RedBlackTree[] parts = t.split(key);
+
+			RedBlackTests.validateTree(parts[0]);
+			RedBlackTests.validateTree(parts[1]);
+
+			for (int i = 1; i <= n; ++i) {
+				Object expected = (removed[i] ? null : Integer.valueOf(i));
+
+				assertEquals(expected, (i < key ? parts[0] : parts[1])
+						.search(i));
+				assertNull((i < key ? parts[1] : parts[0]).search(i));
+			}
+		}
+	}
+
+	@Test
+	public void testSplaySplit() {
+		int levels = 6;
+		int n = (1 << levels) - 1;
+
+		for (int key = 0; key <= n + 1; key += 5) {
+			SplayTree t = new SplayTree();
+			t.initializePerfectTree(levels);
+
+			SplayTree[] parts = t.split(key);
+
+			BSTTests.validateTree(parts[0]);
+			BSTTests.validateTree(parts[1]);
+			assertNull(t.getRoot());
+
+			assertEquals(Math.max(0, Math.min(key - 1, n)), size(parts[0]));
+			assertEquals(n - Math.max(0, Math.min(key - 1, n)), size(parts[1]));
+		}
+	}
+
+	@Test
+	public void testTangoSplit() {
+		int levels = 6;
+		int n = (1 << levels) - 1;
+		Random rnd = new Random(26);
+
+		for (int key = 1; key <= n + 1; key += 3) {
+			RedBlackTango t = new RedBlackTango();
+			t.initializePerfectTree(levels);
+
+			// establish some preferred paths first
+			for (int i = 0; i < n; ++i) {
+				t.search(rnd.nextInt(n) + 1);
+			}
+
+			long traversals = t.getStats().getTraversals();
+			RedBlackTango[] parts = t.split(key);
+
+			// the split is not counted as a search
+			assertEquals(traversals, t.getStats().getTraversals());
+
+			checkTango(parts[0], 1, key - 1, rnd);
+			checkTango(parts[1], key, n, rnd);
+		}
+	}
+
+	@Test
+	public void testTangoSplitTwice() {
+		RedBlackTango t = new RedBlackTango();
+		t.initializePerfectTree(7);
+
+		RedBlackTango[] parts = t.split(50);
+		RedBlackTango[] left = parts[0].split(13);
+		RedBlackTango[] right = parts[1].split(100);
+
+		Random rnd = new Random(7);
+
+		checkTango(left[0], 1, 12, rnd);
+		checkTango(left[1], 13, 49, rnd);
+		checkTango(right[0], 50, 99, rnd);
+		checkTango(right[1], 100, 127, rnd);
+	}
+
+	/*
+	 * Utilities
+	 */
+
+	private static void checkSplit(BinarySearchTree l, BinarySearchTree r,
+			int key, int min, int max) {
+		for (int i = min; i <= max; ++i) {
+			if (i < key) {
+				assertEquals(i, l.search(i));
+				assertNull(r.search(i));
+			} else {
+				assertNull(l.search(i));
+				assertEquals(i, r.search(i));
+			}
+		}
+	}
+
+	private static void checkTango(RedBlackTango t, int min, int max,
+			Random rnd) {
+		int n = max - min + 1;
+
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = min; i <= max; ++i) {
+			sb.append(i == min ? "" : ", ").append(i);
+		}
+		sb.append("]");
+
+		if (n > 0) {
+			assertEquals(sb.toString(), t.toString());
+		}
+
+		// random accesses exercise the preferred paths of the new halves
+		for (int i = 0; i < 4 * n; ++i) {
+			int k = min + rnd.nextInt(n + 1);
+
+			if (k <= max) {
+				assertEquals(k, t.search(k));
+			}
+		}
+	}
+
+	private static long size(BinarySearchTree t) {
+		return (t.getRoot() == null ? 0 : t.getRoot().size);
+	}
+}
@@ -0,0 +1,78 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import tango.RedBlackTango;
+import tango.TangoNode;
+import tango.TangoPrimitives;
+import tango.TangoTree;
+import tango.UnbalancedTango;
+
+public class TangoPrimitiveTests {
+
+	private static final int LEVELS = 8;
+
+	@Test
+	public void testUnbalancedPrimitives() {
+		checkPrimitives(new UnbalancedTango());
+	}
+
+	@Test
+	public void testRedBlackPrimitives() {
+		checkPrimitives(new RedBlackTango());
+	}
+
+	private static void checkPrimitives(TangoTree t) {
+		int n = (1 << LEVELS) - 1;
+		t.initializePerfectTree(LEVELS);
+		String inOrder = t.toString();
+
+		// a leaf, reached by turning left and right in turn
+		int leaf = 0x55;
+		t.search(leaf);
+
+		TangoNode root = (TangoNode) t.getRoot();
+		assertEquals(0, root.minDepth);
+		assertEquals(LEVELS - 1, root.maxDepth);
+
+		for (int rep = 0; rep < 4; ++rep) {
+			// cut the path in two, and join it up again
+			root = TangoPrimitives.cut(t, (TangoNode) t.getRoot(), 3);
+
+			TangoNode bottom = TangoPrimitives.findAuxRoot(t,
+					TangoPrimitives.findNode(t, leaf));
+			assertNotSame(root, bottom);
+			assertEquals(3, root.maxDepth);
+			assertEquals(4, bottom.minDepth);
+			assertEquals(LEVELS - 1, bottom.maxDepth);
+
+			root = TangoPrimitives.join(t, root, bottom, 3);
+			assertSame(t.getRoot(), root);
+			assertEquals(0, root.minDepth);
+			assertEquals(LEVELS - 1, root.maxDepth);
+
+			// split at each node of the path, and merge back
+			for (int depth = 0; depth < LEVELS; ++depth) {
+				int shift = LEVELS - 1 - depth;
+				int key = ((leaf >>> (shift + 1)) << (shift + 1)) | (1 << shift);
+
+				TangoNode x = TangoPrimitives.findNode(t, key);
+				assertEquals(depth, x.depth);
+
+				assertSame(x,
+						TangoPrimitives.split(t, x, (TangoNode) t.getRoot()));
+				assertSame(x, TangoPrimitives.findAuxRoot(t, x));
+
+				TangoPrimitives.merge(t, x);
+				assertEquals(inOrder, t.toString());
+			}
+		}
+
+		// the tree still searches correctly
+		for (int key = 1; key <= n; ++key) {
+			assertEquals(key, t.search(key));
+		}
+	}
+}
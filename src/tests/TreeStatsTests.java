@@ -0,0 +1,64 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import tango.ConcurrentTreeStats;
+import tango.SplayTree;
+import tango.TreeStats;
+
+public class TreeStatsTests {
+
+	@Test
+	public void testConcurrentCounts() throws InterruptedException {
+		final ConcurrentTreeStats stats = new ConcurrentTreeStats();
+		final int n = 100000;
+		Thread[] workers = new Thread[4];
+
+		for (int w = 0; w < workers.length; ++w) {
+			workers[w] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < n; ++i) {
+						stats.incTraversals();
+
+						if (i % 2 == 0)
+							stats.incRotations();
+					}
+				}
+			});
+
+			workers[w].start();
+		}
+
+		for (Thread w : workers) {
+			w.join();
+		}
+
+		TreeStats snapshot = new TreeStats(stats);
+
+		assertEquals(workers.length * n, snapshot.getTraversals());
+		assertEquals(workers.length * n / 2, snapshot.getRotations());
+		assertEquals(0, snapshot.getOtherTraversals());
+
+		stats.reset();
+		assertEquals(0, stats.getTraversals());
+	}
+
+	@Test
+	public void testSetStatsKeepsCounts() {
+		SplayTree t = new SplayTree();
+		t.initializePerfectTree(5);
+		t.search(1);
+
+		long before = t.getStats().getTraversals();
+		assertTrue(before > 0);
+
+		t.setStats(new ConcurrentTreeStats());
+		assertEquals(before, t.getStats().getTraversals());
+
+		t.search(31);
+		assertTrue(t.getStats().getTraversals() > before);
+	}
+}
@@ -0,0 +1,57 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import console.WarmupPolicy;
+
+public class WarmupPolicyTests {
+
+	@Test
+	public void testCoefficientOfVariation() {
+		long[] times = { 100, 200, 300, 10, 10, 10 };
+
+		assertEquals(0.5, WarmupPolicy.coefficientOfVariation(times, 0, 3), 1e-9);
+		assertEquals(0.0, WarmupPolicy.coefficientOfVariation(times, 3, 6), 1e-9);
+		assertEquals(0.0, WarmupPolicy.coefficientOfVariation(times, 0, 1), 1e-9);
+	}
+
+	@Test
+	public void testDisabled() {
+		WarmupPolicy w = new WarmupPolicy();
+
+		assertFalse(w.needsMore(new long[1], 0));
+	}
+
+	@Test
+	public void testSettles() {
+		WarmupPolicy w = new WarmupPolicy();
+		w.warmupIterations = 2;
+		w.maxWarmupIterations = 10;
+		w.steadyWindow = 3;
+		w.steadyCv = 0.05;
+
+		// falling times, as the code gets compiled, then flat
+		long[] times = { 1000, 500, 300, 100, 101, 99, 100, 0, 0, 0 };
+
+		assertTrue(w.needsMore(times, 0));
+		assertTrue(w.needsMore(times, 1));
+		assertTrue(w.needsMore(times, 2));
+		assertTrue(w.needsMore(times, 5));
+		assertFalse(w.needsMore(times, 6));
+	}
+
+	@Test
+	public void testGivesUp() {
+		WarmupPolicy w = new WarmupPolicy();
+		w.warmupIterations = 1;
+		w.maxWarmupIterations = 4;
+		w.steadyWindow = 2;
+
+		long[] times = { 100, 200, 100, 200 };
+
+		assertTrue(w.needsMore(times, 3));
+		assertFalse(w.needsMore(times, 4));
+	}
+}